@@ -3,6 +3,7 @@ package com.computablefacts.morta;
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -64,7 +65,6 @@ public final class FactAndDocument {
    * @param withProgressBar true iif a progress bar should be displayed, false otherwise.
    * @return a set of elements.
    */
-  @SuppressWarnings("unchecked")
   public static Set<FactAndDocument> load(File file, String label, boolean withProgressBar) {
 
     Preconditions.checkNotNull(file, "file should not be null");
@@ -74,19 +74,51 @@ public final class FactAndDocument {
     AtomicInteger nbElements = new AtomicInteger(
         withProgressBar ? View.of(file, true).reduce(0, (carry, row) -> carry + 1) : 0);
 
-    return View.of(file, true).index()
-        .filter(row -> !Strings.isNullOrEmpty(row.getValue()) /* remove empty rows */).map(row -> {
+    return stream(file, label, rowNumber -> {
+      if (progressBar != null) {
+        progressBar.update(rowNumber, nbElements.get());
+      }
+    }).toSet();
+  }
 
-          if (progressBar != null) {
-            progressBar.update(row.getKey(), nbElements.get());
-          }
+  /**
+   * Lazily load elements from a gzipped JSONL file. Contrary to
+   * {@link #load(File, String, boolean)}, elements are parsed one at a time, as the returned view is
+   * consumed. The view should be closed once it is no longer needed.
+   *
+   * @param file  the file to load.
+   * @param label the type of fact to load. If {@code label} is {@code null}, load all facts.
+   * @return a view of elements.
+   */
+  public static View<FactAndDocument> stream(File file, String label) {
+    return stream(file, label, rowNumber -> {});
+  }
+
+  /**
+   * Lazily load elements from a gzipped JSONL file.
+   *
+   * @param file   the file to load.
+   * @param label  the type of fact to load. If {@code label} is {@code null}, load all facts.
+   * @param onRead called with the (1-based) number of each row read, including empty rows and rows
+   *               associated with another label.
+   * @return a view of elements.
+   */
+  @SuppressWarnings("unchecked")
+  private static View<FactAndDocument> stream(File file, String label, IntConsumer onRead) {
 
-          Map<String, Object> element = JsonCodec.asObject(row.getValue());
+    Preconditions.checkNotNull(file, "file should not be null");
+    Preconditions.checkArgument(file.exists(), "file file does not exist : %s", file);
+
+    return View.of(file, true).index().peek(row -> onRead.accept(row.getKey()))
+        .map(Map.Entry::getValue)
+        .filter(row -> !Strings.isNullOrEmpty(row) /* remove empty rows */).map(row -> {
+
+          Map<String, Object> element = JsonCodec.asObject(row);
           Map<String, Object> fact = (Map<String, Object>) element.get("fact");
           Map<String, Object> document = (Map<String, Object>) element.get("document");
 
           return new FactAndDocument(fact, document);
-        }).filter(element -> label == null || label.equals(element.label())).toSet();
+        }).filter(element -> label == null || label.equals(element.label()));
   }
 
   /**
@@ -173,6 +205,19 @@ public final class FactAndDocument {
         }).toSet();
   }
 
+  /**
+   * Split a document text into pages. Pages are separated by a form feed.
+   *
+   * @param text the document text.
+   * @return the document pages. The first page has index 0.
+   */
+  public static List<String> pages(String text) {
+
+    Preconditions.checkNotNull(text, "text should not be null");
+
+    return Splitter.on(FORM_FEED).splitToList(text);
+  }
+
   /**
    * Save elements to a gzipped JSONL file.
    *
@@ -187,10 +232,8 @@ public final class FactAndDocument {
     Preconditions.checkNotNull(elements, "elements should not be null");
 
     if (!file.exists()) {
-      if (!elements.isEmpty()) {
-        View.of(elements).toFile(JsonCodec::asString, file, false, true);
-      }
-      return true;
+      return elements.isEmpty() || Helpers.writeAtomically(file,
+          tmp -> View.of(elements).toFile(JsonCodec::asString, tmp, false, true));
     }
     return false;
   }
@@ -446,7 +489,7 @@ public final class FactAndDocument {
 
   private Optional<List<String>> pages() {
     return Optional.ofNullable(document_).map(doc -> document()).map(doc -> (String) doc.text())
-        .map(text -> Splitter.on(FORM_FEED).splitToList(text));
+        .map(FactAndDocument::pages);
   }
 
   private Optional<Integer> page() {
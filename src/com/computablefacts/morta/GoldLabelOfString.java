@@ -127,10 +127,8 @@ public final class GoldLabelOfString implements IGoldLabel<String> {
     Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
 
     if (!file.exists()) {
-      if (!goldLabels.isEmpty()) {
-        View.of(goldLabels).toFile(JsonCodec::asString, file, false, true);
-      }
-      return true;
+      return goldLabels.isEmpty() || Helpers.writeAtomically(file,
+          tmp -> View.of(goldLabels).toFile(JsonCodec::asString, tmp, false, true));
     }
     return false;
   }
@@ -3,20 +3,35 @@ package com.computablefacts.morta;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.ABSTAIN;
 
 import java.io.File;
+import java.io.IOException;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.computablefacts.asterix.IO;
+import com.computablefacts.asterix.SnippetExtractor;
+import com.computablefacts.asterix.Span;
 import com.computablefacts.asterix.StringIterator;
 import com.computablefacts.asterix.View;
 import com.computablefacts.asterix.codecs.StringCodec;
+import com.computablefacts.logfmt.LogFormatter;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.*;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.Var;
 import com.thoughtworks.xstream.XStream;
@@ -29,6 +44,8 @@ import smile.stat.hypothesis.CorTest;
 @CheckReturnValue
 final public class Helpers {
 
+  private static final Logger logger_ = LoggerFactory.getLogger(Helpers.class);
+
   private Helpers() {}
 
   public static <T> void serialize(String filename, T t) {
@@ -36,10 +53,68 @@ final public class Helpers {
     Preconditions.checkNotNull(t, "t should not be null");
     Preconditions.checkNotNull(filename, "filename should not be null");
 
-    Preconditions.checkState(IO.writeCompressedText(new File(filename), xStream().toXML(t), false),
+    String xml = xStream().toXML(t);
+
+    Preconditions.checkState(
+        writeAtomically(new File(filename),
+            tmp -> Preconditions.checkState(IO.writeCompressedText(tmp, xml, false))),
         "%s cannot be written", filename);
   }
 
+  /**
+   * Write a file atomically. The content is first written to a temporary file located in the same
+   * directory. Then, the temporary file is renamed. Thus, a crash in the middle of a write never
+   * leaves a partially written file behind.
+   *
+   * @param file the file to write.
+   * @param writer a function that writes the content to a given file.
+   * @return true iif the file has been written, false otherwise.
+   */
+  public static boolean writeAtomically(File file, Consumer<File> writer) {
+
+    Preconditions.checkNotNull(file, "file should not be null");
+    Preconditions.checkNotNull(writer, "writer should not be null");
+
+    try {
+      File tmp = File.createTempFile(file.getName() + "-", ".tmp",
+          file.getAbsoluteFile().getParentFile());
+      try {
+
+        // The writer expects a file that does not exist yet
+        Files.delete(tmp.toPath());
+        writer.accept(tmp);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        return true;
+      } finally {
+        Files.deleteIfExists(tmp.toPath());
+      }
+    } catch (IOException | RuntimeException e) {
+      logger_.error(LogFormatter.create().message(e).formatError());
+    }
+    return false;
+  }
+
+  /**
+   * Compute a stable fingerprint of a list of objects. Two lists of objects with the same
+   * serialized form have the same fingerprint.
+   *
+   * @param objects the objects to hash.
+   * @return a fingerprint.
+   */
+  public static String hash(Object... objects) {
+
+    Preconditions.checkNotNull(objects, "objects should not be null");
+
+    XStream xStream = xStream();
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+
+    for (Object object : objects) {
+      hasher.putString(xStream.toXML(object), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
   @SuppressWarnings("unchecked")
   public static <T> T deserialize(String filename) {
 
@@ -124,7 +199,6 @@ final public class Helpers {
       ngrams[i] = HashMultiset.create();
     }
 
-    StringBuilder word = new StringBuilder();
     @Var
     String w1 = "";
     @Var
@@ -135,6 +209,47 @@ final public class Helpers {
     String w4 = "";
     @Var
     String w5 = "";
+
+    for (String w : tokens(text)) {
+
+      w1 = w2;
+      w2 = w3;
+      w3 = w4;
+      w4 = w5;
+      w5 = w;
+
+      ngrams[0].add(w5);
+
+      if (maxGroupSize >= 2) {
+        ngrams[1].add(w4 + w5);
+      }
+      if (maxGroupSize >= 3) {
+        ngrams[2].add(w3 + w4 + w5);
+      }
+      if (maxGroupSize >= 4) {
+        ngrams[3].add(w2 + w3 + w4 + w5);
+      }
+      if (maxGroupSize >= 5) {
+        ngrams[4].add(w1 + w2 + w3 + w4 + w5);
+      }
+    }
+    return ngrams;
+  }
+
+  /**
+   * Split a text into tokens. Each token but the first one is prefixed with a {@code _}. Two
+   * consecutive separators produce a {@code _} token. The text after the last separator is
+   * ignored.
+   *
+   * @param text the text to split.
+   * @return a list of tokens.
+   */
+  public static List<String> tokens(String text) {
+
+    Preconditions.checkNotNull(text, "text should not be null");
+
+    List<String> tokens = new ArrayList<>();
+    StringBuilder word = new StringBuilder();
     StringIterator iterator = new StringIterator(text);
 
     while (iterator.hasNext()) {
@@ -164,36 +279,14 @@ final public class Helpers {
         word.append(c);
       } else {
 
-        String w = word.toString();
-
-        if (w.length() > 0) {
-
-          w1 = w2;
-          w2 = w3;
-          w3 = w4;
-          w4 = w5;
-          w5 = w;
-
-          ngrams[0].add(w5);
-
-          if (maxGroupSize >= 2) {
-            ngrams[1].add(w4 + w5);
-          }
-          if (maxGroupSize >= 3) {
-            ngrams[2].add(w3 + w4 + w5);
-          }
-          if (maxGroupSize >= 4) {
-            ngrams[3].add(w2 + w3 + w4 + w5);
-          }
-          if (maxGroupSize >= 5) {
-            ngrams[4].add(w1 + w2 + w3 + w4 + w5);
-          }
+        if (word.length() > 0) {
+          tokens.add(word.toString());
         }
         word.setLength(0);
         word.append('_');
       }
     }
-    return ngrams;
+    return tokens;
   }
 
   public static Map<String, Double> features(int maxGroupSize, String text) {
@@ -221,8 +314,122 @@ final public class Helpers {
     Preconditions.checkNotNull(labelingFunctions, "labelingFunctions should not be null");
     Preconditions.checkNotNull(text, "text should not be null");
 
-    return labelingFunctions.stream().flatMap((lf) -> lf.matches(text).stream()).distinct()
+    return keywords(spans(labelingFunctions, text));
+  }
+
+  /**
+   * Returns the distinct keywords associated with a list of matches.
+   *
+   * @param spans the matches.
+   * @return a list of keywords ordered by first occurrence.
+   */
+  public static List<String> keywords(List<Span> spans) {
+
+    Preconditions.checkNotNull(spans, "spans should not be null");
+
+    Set<String> keywords = new LinkedHashSet<>();
+
+    for (Span span : spans) {
+      keywords.add(span.text());
+    }
+    return new ArrayList<>(keywords);
+  }
+
+  /**
+   * Locate the matches of a list of labeling functions in a given text. Each labeling function
+   * scans the text once.
+   *
+   * @param labelingFunctions the labeling functions.
+   * @param text the text.
+   * @return the distinct matches ordered by position.
+   */
+  public static List<Span> spans(
+      List<? extends AbstractLabelingFunction<String>> labelingFunctions, String text) {
+
+    Preconditions.checkNotNull(labelingFunctions, "labelingFunctions should not be null");
+    Preconditions.checkNotNull(text, "text should not be null");
+
+    return spans(labelingFunctions.stream().map(lf -> lf.spans(text)));
+  }
+
+  /**
+   * Merge lists of matches.
+   *
+   * @param spans the lists of matches.
+   * @return the distinct matches ordered by position.
+   */
+  public static List<Span> spans(Stream<List<Span>> spans) {
+
+    Preconditions.checkNotNull(spans, "spans should not be null");
+
+    List<Span> sorted = spans.flatMap(List::stream)
+        .sorted(Comparator.comparingInt(Span::begin).thenComparingInt(Span::end))
         .collect(Collectors.toList());
+    List<Span> distinct = new ArrayList<>(sorted.size());
+
+    for (Span span : sorted) {
+
+      Span last = distinct.isEmpty() ? null : distinct.get(distinct.size() - 1);
+
+      if (last == null || last.begin() != span.begin() || last.end() != span.end()) {
+        distinct.add(span);
+      }
+    }
+    return distinct;
+  }
+
+  /**
+   * Extract a snippet of text centered around a list of matches. Contrary to
+   * {@link SnippetExtractor#extract(List, String, int, int, String)}, the text is not scanned
+   * again to locate the keywords : the offsets of the matches are used instead.
+   *
+   * @param spans the matches ordered by position.
+   * @param text the text.
+   * @param relLength the snippet length.
+   * @param prevCount the maximum number of characters to look at, before the snippet start and
+   *        after the snippet end, for a word boundary.
+   * @param indicator the string to prepend (resp. append) to the snippet when the snippet does not
+   *        start (resp. end) the text.
+   * @return a snippet.
+   */
+  public static String snippet(List<Span> spans, String text, int relLength, int prevCount,
+      String indicator) {
+
+    Preconditions.checkNotNull(spans, "spans should not be null");
+    Preconditions.checkNotNull(text, "text should not be null");
+    Preconditions.checkArgument(!spans.isEmpty(), "spans should not be empty");
+    Preconditions.checkArgument(relLength >= 0, "relLength must be >= 0");
+    Preconditions.checkArgument(prevCount >= 0, "prevCount must be >= 0");
+
+    String ellipsis = indicator == null ? "..." : indicator;
+    int length = text.length();
+
+    if (length <= relLength) {
+      return text;
+    }
+
+    int location = SnippetExtractor.snippetLocation(spans, relLength, prevCount);
+    @Var
+    int begin = location;
+    @Var
+    int end = Math.min(length, location + relLength);
+
+    if (begin + relLength > length) {
+      begin = Math.max(0, length - relLength);
+    }
+    if (begin > 0) {
+
+      int space = text.lastIndexOf(' ', begin);
+
+      begin = space < 0 ? Math.max(0, begin - prevCount) : space + 1;
+    }
+    if (begin + relLength < length) {
+
+      int space = text.indexOf(' ', end);
+
+      end = space < 0 ? Math.min(length, end + prevCount) : space;
+    }
+    return (begin > 0 ? ellipsis : "") + text.substring(begin, end) + (end < length ? ellipsis : "");
   }
 
   private static Multiset<String>[] patterns(Multiset<String>[] ngrams) {
@@ -239,82 +446,88 @@ final public class Helpers {
 
       ngrams[index].entrySet().forEach(entry -> {
 
-        @Var
-        String ngram = entry.getElement();
-        int count = entry.getCount();
+        String pattern = pattern(entry.getElement());
 
-        // Remove 'combining agrave accent' from the original string
-        ngram = ngram.replace("\u0300", "");
+        if (!Strings.isNullOrEmpty(pattern) && !".+".equals(pattern)) {
+          patterns[index].add(pattern, entry.getCount());
+        }
+      });
+    }
+    return patterns;
+  }
 
-        // Remove 'combining acute accent' from the original string
-        ngram = ngram.replace("\u0301", "");
+  /**
+   * Transform a ngram into a case and accent insensitive pattern. For example, {@code _été_Paris}
+   * becomes {@code [éÉeE][tT][éÉeE].[pP][aA][rR][iI][sS]}.
+   *
+   * @param ngram the ngram to transform.
+   * @return a pattern if any, {@code null} if the ngram cannot be transformed.
+   */
+  public static String pattern(@Var String ngram) {
 
-        String lowercase = ngram.toLowerCase();
-        String uppercase = ngram.toUpperCase();
-        String normalizedLowercase = StringCodec.removeDiacriticalMarks(lowercase);
-        String normalizedUppercase = StringCodec.removeDiacriticalMarks(uppercase);
-        StringBuilder builder = new StringBuilder(ngram.length());
+    Preconditions.checkNotNull(ngram, "ngram should not be null");
 
-        if (ngram.length() != lowercase.length() || ngram.length() != uppercase.length()
-            || ngram.length() != normalizedLowercase.length()
-            || ngram.length() != normalizedUppercase.length()) {
+    // Remove 'combining agrave accent' from the original string
+    ngram = ngram.replace("\u0300", "");
 
-          // For example the lowercase character 'ß' is mapped to 'SS' in uppercase...
-          return;
-        }
-        for (int k = 0; k < ngram.length(); k++) {
-          if (builder.length() == 0 && ngram.charAt(k) == '_') {
-            continue; // from our POV, _word <=> word
-          }
+    // Remove 'combining acute accent' from the original string
+    ngram = ngram.replace("\u0301", "");
 
-          char c1 = lowercase.charAt(k);
-          char c2 = uppercase.charAt(k);
-          char c3 = normalizedLowercase.charAt(k);
-          char c4 = normalizedUppercase.charAt(k);
-
-          if (c1 == '_' && c2 == '_') {
-            if (builder.length() > 0) {
-              char prev = builder.charAt(builder.length() - 1);
-              if (prev == '.') {
-                builder.append('+');
-              } else if (prev != '+') {
-                builder.append('.');
-              }
-            }
-          } else {
-            builder.append('[');
-            builder.append(c1);
-            if (c1 != c2) {
-              builder.append(c2);
-            }
-            if (c1 != c3 && c2 != c3) {
-              builder.append(c3);
-            }
-            if (c1 != c4 && c2 != c4 && c3 != c4) {
-              builder.append(c4);
-            }
-            builder.append(']');
-          }
-        }
+    String lowercase = ngram.toLowerCase();
+    String uppercase = ngram.toUpperCase();
+    String normalizedLowercase = StringCodec.removeDiacriticalMarks(lowercase);
+    String normalizedUppercase = StringCodec.removeDiacriticalMarks(uppercase);
+    StringBuilder builder = new StringBuilder(ngram.length());
 
-        for (int k = builder.length() - 1; k >= 0; k--) {
-          if (builder.charAt(k) != '.' && builder.charAt(k) != '+') {
-            builder.setLength(k + 1);
-            break; // from our POV, word_ <=> word
-          }
-        }
+    if (ngram.length() != lowercase.length() || ngram.length() != uppercase.length()
+        || ngram.length() != normalizedLowercase.length()
+        || ngram.length() != normalizedUppercase.length()) {
 
-        if (builder.length() > 0) {
+      // For example the lowercase character 'ß' is mapped to 'SS' in uppercase...
+      return null;
+    }
+    for (int k = 0; k < ngram.length(); k++) {
+      if (builder.length() == 0 && ngram.charAt(k) == '_') {
+        continue; // from our POV, _word <=> word
+      }
 
-          String pattern = builder.toString();
+      char c1 = lowercase.charAt(k);
+      char c2 = uppercase.charAt(k);
+      char c3 = normalizedLowercase.charAt(k);
+      char c4 = normalizedUppercase.charAt(k);
 
-          if (!".+".equals(pattern)) {
-            patterns[index].add(pattern, count);
+      if (c1 == '_' && c2 == '_') {
+        if (builder.length() > 0) {
+          char prev = builder.charAt(builder.length() - 1);
+          if (prev == '.') {
+            builder.append('+');
+          } else if (prev != '+') {
+            builder.append('.');
           }
         }
-      });
+      } else {
+        builder.append('[');
+        builder.append(c1);
+        if (c1 != c2) {
+          builder.append(c2);
+        }
+        if (c1 != c3 && c2 != c3) {
+          builder.append(c3);
+        }
+        if (c1 != c4 && c2 != c4 && c3 != c4) {
+          builder.append(c4);
+        }
+        builder.append(']');
+      }
     }
-    return patterns;
+
+    for (int k = builder.length() - 1; k >= 0; k--) {
+      if (builder.charAt(k) != '.' && builder.charAt(k) != '+') {
+        builder.setLength(k + 1);
+        break; // from our POV, word_ <=> word
+      }
+    }
+    return builder.toString();
   }
 
   private static XStream xStream() {
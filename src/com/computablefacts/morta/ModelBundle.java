@@ -0,0 +1,112 @@
+package com.computablefacts.morta;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.computablefacts.asterix.Generated;
+import com.computablefacts.morta.classifiers.AbstractClassifier;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+import com.computablefacts.morta.labelmodels.AbstractLabelModel;
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+
+/**
+ * The models trained for a given label and saved to a {@link Repository}. The classifier is used
+ * when one has been trained, the label model otherwise.
+ *
+ * A bundle is immutable : models are loaded once, when the bundle is created.
+ */
+@ThreadSafe
+@CheckReturnValue
+final public class ModelBundle {
+
+  private final Repository repository_;
+  private final String label_;
+  private final AbstractLabelModel<String> labelModel_;
+  private final List<AbstractLabelingFunction<String>> labelingFunctions_;
+  private final Dictionary alphabet_; // null if no classifier has been trained
+  private final AbstractClassifier classifier_; // null if no classifier has been trained
+
+  private ModelBundle(Repository repository, String label, AbstractLabelModel<String> labelModel,
+      List<AbstractLabelingFunction<String>> labelingFunctions, Dictionary alphabet,
+      AbstractClassifier classifier) {
+
+    repository_ = repository;
+    label_ = label;
+    labelModel_ = labelModel;
+    labelingFunctions_ = labelingFunctions;
+    alphabet_ = alphabet;
+    classifier_ = classifier;
+  }
+
+  /**
+   * Load the models of a given label.
+   *
+   * @param repository the repository the models have been saved to.
+   * @param label      the label.
+   * @return a bundle if at least a label model has been trained for {@code label}.
+   */
+  public static Optional<ModelBundle> load(Repository repository, String label) {
+
+    Preconditions.checkNotNull(repository, "repository should not be null");
+    Preconditions.checkNotNull(label, "label should not be null");
+
+    Optional<AbstractLabelModel<String>> labelModel = repository.loadLabelModel(label);
+
+    if (!labelModel.isPresent()) {
+      return Optional.empty();
+    }
+
+    List<AbstractLabelingFunction<String>> labelingFunctions =
+        repository.loadLabelingFunctions(label).orElse(Collections.emptyList());
+    Optional<Dictionary> alphabet = repository.loadAlphabet(label);
+    Optional<AbstractClassifier> classifier =
+        alphabet.isPresent() ? repository.loadClassifier(label) : Optional.empty();
+
+    return Optional.of(new ModelBundle(repository, label, labelModel.get(), labelingFunctions,
+        classifier.isPresent() ? alphabet.get() : null, classifier.orElse(null)));
+  }
+
+  @Generated
+  public String label() {
+    return label_;
+  }
+
+  /**
+   * Classify a given text.
+   *
+   * @param text the text to classify.
+   * @return a label in {OK, KO}.
+   */
+  public int predict(String text) {
+    return classifier_ == null ? repository_.predict(labelModel_, text)
+        : repository_.predict(alphabet_, classifier_, text);
+  }
+
+  /**
+   * Classify a batch of texts.
+   *
+   * @param texts the texts to classify.
+   * @return a label in {OK, KO} for each text.
+   */
+  public int[] predict(List<String> texts) {
+    return classifier_ == null ? repository_.predict(labelModel_, texts)
+        : repository_.predict(alphabet_, classifier_, texts);
+  }
+
+  /**
+   * On positive classification, returns a snippet of text centered around its most 'interesting'
+   * part.
+   *
+   * @param text the text to classify.
+   * @return a snippet centered around its most 'interesting' part (if any).
+   */
+  public Optional<String> predictAndGetFocusPoint(String text) {
+    return classifier_ == null
+        ? repository_.predictAndGetFocusPoint(labelModel_, labelingFunctions_, text)
+        : repository_.predictAndGetFocusPoint(alphabet_, classifier_, labelingFunctions_, text);
+  }
+}
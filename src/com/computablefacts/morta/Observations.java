@@ -19,9 +19,28 @@ final public class Observations {
   private final Stopwatch stopwatch_ = Stopwatch.createStarted();
   private final List<String> observations_ = new ArrayList<>();
   private final File file_;
+  private final Observations parent_;
 
   public Observations(File file) {
+    this(file, null);
+  }
+
+  private Observations(File file, Observations parent) {
     file_ = file;
+    parent_ = parent;
+  }
+
+  /**
+   * Create a stream of observations whose messages are buffered until {@link #flush()} is called.
+   * On flush, the buffered messages are appended, in order, to the current stream of observations.
+   * It allows multiple threads to record observations without interleaving them : each thread owns
+   * its own child stream and the parent stream is only updated by the thread calling
+   * {@link #flush()}.
+   *
+   * @return a child stream of observations.
+   */
+  public Observations child() {
+    return new Observations(null, this);
   }
 
   public void flush() {
@@ -29,7 +48,10 @@ final public class Observations {
     stopwatch_.stop();
     observations_.add(String.format("Elapsed time : %ds", stopwatch_.elapsed(TimeUnit.SECONDS)));
 
-    if (file_ != null) {
+    if (parent_ != null) {
+      observations_.forEach(parent_::add);
+      observations_.clear();
+    } else if (file_ != null) {
       View.of(observations_).toFile(Function.identity(), file_, file_.exists());
       observations_.clear();
     }
@@ -42,6 +64,10 @@ final public class Observations {
 
       String msg = message.trim();
 
+      if (parent_ != null) {
+        observations_.add(msg);
+        return;
+      }
       if (file_ != null) {
         observations_.add(msg);
       }
@@ -0,0 +1,104 @@
+package com.computablefacts.morta;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+
+/**
+ * A minimal DAG scheduler. A pipeline is a set of stages. A stage starts as soon as all its
+ * dependencies have completed. Thus, independent stages run concurrently.
+ *
+ * Stages do not cache their output : caching is the responsibility of the stage itself (see
+ * {@link Repository}).
+ *
+ * <pre>
+ * try (Pipeline pipeline = new Pipeline(2)) {
+ *   Pipeline.Stage&lt;A&gt; a = pipeline.stage("a", () -&gt; newA());
+ *   Pipeline.Stage&lt;B&gt; b = pipeline.stage("b", () -&gt; newB());
+ *   Pipeline.Stage&lt;C&gt; c = pipeline.stage("c", () -&gt; newC(a.get(), b.get()), a, b);
+ *   C result = c.get();
+ * }
+ * </pre>
+ */
+@CheckReturnValue
+final public class Pipeline implements AutoCloseable {
+
+  private final ExecutorService executor_;
+
+  /**
+   * Constructor.
+   *
+   * @param parallelism the maximum number of stages that can run concurrently.
+   */
+  public Pipeline(int parallelism) {
+
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
+
+    executor_ = Executors.newFixedThreadPool(parallelism);
+  }
+
+  /**
+   * Add a stage to the pipeline. The stage is scheduled immediately : it will start as soon as all
+   * its dependencies have completed. If a dependency fails, the stage fails too.
+   *
+   * @param name the stage name.
+   * @param supplier the stage body. The body can safely call {@link Stage#get()} on any of its
+   *        dependencies.
+   * @param dependencies the stages that must complete before this one.
+   * @return a stage.
+   */
+  public <T> Stage<T> stage(String name, Supplier<T> supplier, Stage<?>... dependencies) {
+
+    Preconditions.checkNotNull(name, "name should not be null");
+    Preconditions.checkNotNull(supplier, "supplier should not be null");
+    Preconditions.checkNotNull(dependencies, "dependencies should not be null");
+
+    CompletableFuture<?>[] futures =
+        Arrays.stream(dependencies).map(stage -> stage.future_).toArray(CompletableFuture[]::new);
+
+    return new Stage<>(name,
+        CompletableFuture.allOf(futures).thenApplyAsync(unused -> supplier.get(), executor_));
+  }
+
+  @Override
+  public void close() {
+    executor_.shutdownNow();
+  }
+
+  @CheckReturnValue
+  final public static class Stage<T> {
+
+    private final String name_;
+    private final CompletableFuture<T> future_;
+
+    private Stage(String name, CompletableFuture<T> future) {
+      name_ = name;
+      future_ = future;
+    }
+
+    public String name() {
+      return name_;
+    }
+
+    /**
+     * Wait for the stage to complete.
+     *
+     * @return the stage output.
+     * @throws IllegalStateException if the stage or one of its dependencies failed. The cause is the
+     *         original exception.
+     */
+    public T get() {
+      try {
+        return future_.join();
+      } catch (CompletionException e) {
+        throw new IllegalStateException("stage " + name_ + " failed", e.getCause());
+      }
+    }
+  }
+}
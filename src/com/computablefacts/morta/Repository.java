@@ -5,15 +5,23 @@ import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFuncti
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.annotation.concurrent.ThreadSafe;
 
 import com.computablefacts.asterix.ConfusionMatrix;
 import com.computablefacts.asterix.Generated;
-import com.computablefacts.asterix.SnippetExtractor;
+import com.computablefacts.asterix.Span;
 import com.computablefacts.asterix.View;
-import com.computablefacts.morta.bow.BagOfNGrams;
 import com.computablefacts.morta.classifiers.*;
 import com.computablefacts.morta.docsetlabeler.DocSetLabelerImpl;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
@@ -27,8 +35,25 @@ import com.google.common.base.Strings;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
 import com.google.errorprone.annotations.CheckReturnValue;
 
+/**
+ * A repository of artifacts i.e. gold labels, alphabets, labeling functions, label models and
+ * classifiers. Artifacts are computed once and cached on disk.
+ *
+ * Each cached artifact is paired with a key i.e. a fingerprint of the gold labels, of its upstream
+ * artifacts and of its parameters. A cached artifact is reused iif its key matches : changing a
+ * parameter recomputes the affected artifacts and nothing more. Artifacts are written atomically.
+ *
+ * A repository can be shared by multiple threads. Artifacts shared by all labels are created under
+ * the repository lock. Artifacts associated with a single label are created under a lock specific
+ * to that artifact : labels, and the independent artifacts of a given label e.g. the alphabet and
+ * the labeling functions, can be computed concurrently but a given artifact is never created twice.
+ */
+@ThreadSafe
 @CheckReturnValue
 public final class Repository {
 
@@ -38,7 +63,10 @@ public final class Repository {
 
   private final String outputDir_;
   private final int maxGroupSize_;
-  private boolean isInitialized_ = false;
+  private final int nbThreads_;
+  private final ConcurrentMap<String, Object> locks_ = new ConcurrentHashMap<>();
+  private volatile boolean isInitialized_ = false;
+  private String goldLabelsKey_; // lazily computed
 
   /**
    * Constructor.
@@ -47,12 +75,27 @@ public final class Repository {
    * @param maxGroupSize the maximum number of tokens for a single ngram.
    */
   public Repository(String outputDir, int maxGroupSize) {
+    this(outputDir, maxGroupSize, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param outputDir    where the temporary files will be written.
+   * @param maxGroupSize the maximum number of tokens for a single ngram.
+   * @param nbThreads    the maximum number of threads used to compute a single artifact. When
+   *                     labels are processed concurrently, the available cores should be shared
+   *                     between them.
+   */
+  public Repository(String outputDir, int maxGroupSize, int nbThreads) {
 
     Preconditions.checkNotNull(outputDir, "outputDir should not be null");
     Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+    Preconditions.checkArgument(nbThreads > 0, "nbThreads must be > 0");
 
     outputDir_ = outputDir;
     maxGroupSize_ = maxGroupSize;
+    nbThreads_ = nbThreads;
   }
 
   @Generated
@@ -65,7 +108,12 @@ public final class Repository {
     return maxGroupSize_;
   }
 
-  public Optional<TextCategorizer> loadTextCategorizer() {
+  @Generated
+  public int nbThreads() {
+    return nbThreads_;
+  }
+
+  public synchronized Optional<TextCategorizer> loadTextCategorizer() {
     File file = fileTextCategorizer();
     if (file.exists()) {
       return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
@@ -74,43 +122,63 @@ public final class Repository {
   }
 
   public Optional<TextCategorizer> loadTextCategorizer(String label) {
+
     File file = fileTextCategorizer(label);
-    if (file.exists()) {
-      return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+
+    synchronized (lock(file)) {
+      if (file.exists()) {
+        return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+      }
+      return Optional.empty();
     }
-    return Optional.empty();
   }
 
   public Optional<Dictionary> loadAlphabet(String label) {
+
     File file = fileAlphabet(label);
-    if (file.exists()) {
-      return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+
+    synchronized (lock(file)) {
+      if (file.exists()) {
+        return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+      }
+      return Optional.empty();
     }
-    return Optional.empty();
   }
 
   public Optional<List<AbstractLabelingFunction<String>>> loadLabelingFunctions(String label) {
+
     File file = fileLabelingFunctions(label);
-    if (file.exists()) {
-      return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+
+    synchronized (lock(file)) {
+      if (file.exists()) {
+        return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+      }
+      return Optional.empty();
     }
-    return Optional.empty();
   }
 
   public Optional<AbstractLabelModel<String>> loadLabelModel(String label) {
+
     File file = fileLabelModel(label);
-    if (file.exists()) {
-      return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+
+    synchronized (lock(file)) {
+      if (file.exists()) {
+        return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+      }
+      return Optional.empty();
     }
-    return Optional.empty();
   }
 
   public Optional<AbstractClassifier> loadClassifier(String label) {
+
     File file = fileClassifier(label);
-    if (file.exists()) {
-      return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+
+    synchronized (lock(file)) {
+      if (file.exists()) {
+        return Optional.ofNullable(Helpers.deserialize(file.getAbsolutePath()));
+      }
+      return Optional.empty();
     }
-    return Optional.empty();
   }
 
   /**
@@ -123,7 +191,8 @@ public final class Repository {
    * @param withProgressBar true iif a progress bar should be displayed, false otherwise.
    * @return a set of fact types i.e. labels.
    */
-  public Set<String> init(File facts, File documents, boolean resize, boolean withProgressBar) {
+  public synchronized Set<String> init(File facts, File documents, boolean resize,
+      boolean withProgressBar) {
 
     Preconditions.checkState(!isInitialized_, "init() should be called only once");
 
@@ -148,6 +217,25 @@ public final class Repository {
         .toSet();
   }
 
+  /**
+   * Returns the labels for which a label model has been trained and saved in the current
+   * repository. Contrary to {@link #labels()}, the repository does not have to be initialized.
+   *
+   * @return a set of labels.
+   */
+  public Set<String> trainedLabels() {
+
+    String suffix = "_label_model.xml.gz";
+    File[] files = new File(outputDir_).listFiles((dir, name) -> name.endsWith(suffix));
+
+    if (files == null) {
+      return Collections.emptySet();
+    }
+    return Arrays.stream(files).map(File::getName)
+        .map(name -> name.substring(0, name.length() - suffix.length()))
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
   /**
    * Load facts and documents for a given label.
    *
@@ -163,6 +251,19 @@ public final class Repository {
         .collect(Collectors.toSet());
   }
 
+  /**
+   * Lazily load facts and documents for a given label.
+   *
+   * @param label the label to load. If {@code label} is {@code null}, load all facts and documents.
+   * @return a view of facts and documents. The view should be closed once it is no longer needed.
+   */
+  public View<FactAndDocument> streamFactsAndDocuments(String label) {
+
+    Preconditions.checkState(isInitialized_, "init() should be called first");
+
+    return FactAndDocument.stream(fileFactsAndDocuments(), label);
+  }
+
   /**
    * Load pages as gold labels for a given label.
    *
@@ -203,37 +304,22 @@ public final class Repository {
    *
    * @return a {@link TextCategorizer}.
    */
-  public TextCategorizer textCategorizer() {
+  public synchronized TextCategorizer textCategorizer() {
 
     Preconditions.checkState(isInitialized_, "init() should be called first");
 
     File file = fileTextCategorizer();
+    String key = key();
 
-    if (file.exists()) {
+    if (isCheckpointed(file, key)) {
       return Helpers.deserialize(file.getAbsolutePath());
     }
 
     TextCategorizer textCategorizer = new TextCategorizer();
-    labels().forEach(label -> {
-
-      Set<IGoldLabel<String>> goldLabelsAccepted = factsAsGoldLabels(label).stream()
-          .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
-          .collect(Collectors.toSet());
-
-      StringBuilder accepted = new StringBuilder();
-      double avgLengthAccepted = goldLabelsAccepted.stream()
-          .peek(goldLabel -> accepted.append(sanitize(goldLabel.data())).append("\n\n\n"))
-          .mapToInt(goldLabel -> goldLabel.data().length()).average().orElse(0);
-
-      FingerPrint fingerPrint = new FingerPrint();
-      fingerPrint.category(label);
-      fingerPrint.avgLength(avgLengthAccepted);
-      fingerPrint.create(accepted.toString());
+    labels().forEach(label -> textCategorizer.add(fingerPrint(label, factsAsGoldLabels(label)
+        .stream().filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative()))));
 
-      textCategorizer.add(fingerPrint);
-    });
-
-    Helpers.serialize(file.getAbsolutePath(), textCategorizer);
+    checkpoint(file, key, textCategorizer);
     return textCategorizer;
   }
 
@@ -252,44 +338,29 @@ public final class Repository {
 
     File file = fileTextCategorizer(label);
 
-    if (file.exists()) {
-      return Helpers.deserialize(file.getAbsolutePath());
-    }
+    synchronized (lock(file)) {
 
-    Set<IGoldLabel<String>> goldLabels = factsAsGoldLabels(label);
-    Set<IGoldLabel<String>> goldLabelsAccepted = goldLabels.stream()
-        .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
-        .collect(Collectors.toSet());
-    Set<IGoldLabel<String>> goldLabelsRejected = goldLabels.stream()
-        .filter(goldLabel -> !goldLabel.isTruePositive() && !goldLabel.isFalseNegative())
-        .collect(Collectors.toSet());
+      String key = key(label);
 
-    StringBuilder accepted = new StringBuilder();
-    double avgLengthAccepted = goldLabelsAccepted.stream()
-        .peek(goldLabel -> accepted.append(sanitize(goldLabel.data())).append("\n\n\n"))
-        .mapToInt(goldLabel -> goldLabel.data().length()).average().orElse(0);
+      if (isCheckpointed(file, key)) {
+        return Helpers.deserialize(file.getAbsolutePath());
+      }
 
-    StringBuilder rejected = new StringBuilder();
-    double avgLengthRejected = goldLabelsRejected.stream()
-        .peek(goldLabel -> rejected.append(sanitize(goldLabel.data())).append("\n\n\n"))
-        .mapToInt(goldLabel -> goldLabel.data().length()).average().orElse(0);
+      Set<IGoldLabel<String>> goldLabels = factsAsGoldLabels(label);
 
-    FingerPrint fpAccepted = new FingerPrint();
-    fpAccepted.category(ACCEPT);
-    fpAccepted.avgLength(avgLengthAccepted);
-    fpAccepted.create(accepted.toString());
+      FingerPrint fpAccepted = fingerPrint(ACCEPT, goldLabels.stream()
+          .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative()));
 
-    FingerPrint fpRejected = new FingerPrint();
-    fpRejected.category(REJECT);
-    fpRejected.avgLength(avgLengthRejected);
-    fpRejected.create(rejected.toString());
+      FingerPrint fpRejected = fingerPrint(REJECT, goldLabels.stream()
+          .filter(goldLabel -> !goldLabel.isTruePositive() && !goldLabel.isFalseNegative()));
 
-    TextCategorizer textCategorizer = new TextCategorizer();
-    textCategorizer.add(fpAccepted);
-    textCategorizer.add(fpRejected);
+      TextCategorizer textCategorizer = new TextCategorizer();
+      textCategorizer.add(fpAccepted);
+      textCategorizer.add(fpRejected);
 
-    Helpers.serialize(file.getAbsolutePath(), textCategorizer);
-    return textCategorizer;
+      checkpoint(file, key, textCategorizer);
+      return textCategorizer;
+    }
   }
 
   /**
@@ -315,48 +386,53 @@ public final class Repository {
 
     File file = fileLabelingFunctions(label);
 
-    if (file.exists()) {
-      return Helpers.deserialize(file.getAbsolutePath());
-    }
+    synchronized (lock(file)) {
 
-    TextCategorizer textCategorizer = textCategorizer(label);
-    double avgFingerPrintLength = textCategorizer.categories().stream()
-        .filter(fingerPrint -> ACCEPT.equals(fingerPrint.category()))
-        .mapToDouble(FingerPrint::avgLength).findFirst().orElse(0.0);
-    Set<IGoldLabel<String>> factsAsGoldLabels = factsAsGoldLabels(label);
-    Set<IGoldLabel<String>> pagesAsGoldLabels = pagesAsGoldLabels(label);
-    Multiset<String> boosters = HashMultiset.create();
+      String key = key(label, maxGroupSize_, nbCandidatesToConsider, nbLabelsToReturn);
 
-    factsAsGoldLabels.stream()
-        .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
-        .map(IGoldLabel::data)
-        .flatMap(fact -> Helpers.features(maxGroupSize_, fact).keySet().stream())
-        .forEach(boosters::add);
+      if (isCheckpointed(file, key)) {
+        return Helpers.deserialize(file.getAbsolutePath());
+      }
+
+      TextCategorizer textCategorizer = textCategorizer(label);
+      double avgFingerPrintLength = textCategorizer.categories().stream()
+          .filter(fingerPrint -> ACCEPT.equals(fingerPrint.category()))
+          .mapToDouble(FingerPrint::avgLength).findFirst().orElse(0.0);
+      Set<IGoldLabel<String>> factsAsGoldLabels = factsAsGoldLabels(label);
+      Set<IGoldLabel<String>> pagesAsGoldLabels = pagesAsGoldLabels(label);
+      Multiset<String> boosters = HashMultiset.create();
 
-    Set<String> pages =
-        pagesAsGoldLabels.stream().map(IGoldLabel::data).collect(Collectors.toSet());
+      factsAsGoldLabels.stream()
+          .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
+          .map(IGoldLabel::data)
+          .flatMap(fact -> Helpers.features(maxGroupSize_, fact).keySet().stream())
+          .forEach(boosters::add);
 
-    Set<String> pagesOk = pagesAsGoldLabels.stream()
-        .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
-        .map(IGoldLabel::data).collect(Collectors.toSet());
+      Set<String> pages =
+          pagesAsGoldLabels.stream().map(IGoldLabel::data).collect(Collectors.toSet());
 
-    Set<String> pagesKo = pagesAsGoldLabels.stream()
-        .filter(goldLabel -> !goldLabel.isTruePositive() && !goldLabel.isFalseNegative())
-        .map(IGoldLabel::data).collect(Collectors.toSet());
+      Set<String> pagesOk = pagesAsGoldLabels.stream()
+          .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
+          .map(IGoldLabel::data).collect(Collectors.toSet());
 
-    DocSetLabelerImpl docSetLabeler =
-        new DocSetLabelerImpl(maxGroupSize_, boosters, textCategorizer, (int) avgFingerPrintLength);
+      Set<String> pagesKo = pagesAsGoldLabels.stream()
+          .filter(goldLabel -> !goldLabel.isTruePositive() && !goldLabel.isFalseNegative())
+          .map(IGoldLabel::data).collect(Collectors.toSet());
 
-    List<Map.Entry<String, Double>> guesstimatedPatterns =
-        docSetLabeler.label(Lists.newArrayList(pages), Lists.newArrayList(pagesOk),
-            Lists.newArrayList(pagesKo), nbCandidatesToConsider, nbLabelsToReturn);
+      DocSetLabelerImpl docSetLabeler = new DocSetLabelerImpl(maxGroupSize_, boosters,
+          textCategorizer, (int) avgFingerPrintLength, nbThreads_);
 
-    List<AbstractLabelingFunction<String>> guesstimatedLabelingFunctions = guesstimatedPatterns
-        .stream().map(l -> new MatchRegexLabelingFunction(l.getKey(), true, l.getValue()))
-        .collect(Collectors.toList());
+      List<Map.Entry<String, Double>> guesstimatedPatterns =
+          docSetLabeler.label(Lists.newArrayList(pages), Lists.newArrayList(pagesOk),
+              Lists.newArrayList(pagesKo), nbCandidatesToConsider, nbLabelsToReturn);
 
-    Helpers.serialize(file.getAbsolutePath(), guesstimatedLabelingFunctions);
-    return guesstimatedLabelingFunctions;
+      List<AbstractLabelingFunction<String>> guesstimatedLabelingFunctions = guesstimatedPatterns
+          .stream().map(l -> new MatchRegexLabelingFunction(l.getKey(), true, l.getValue()))
+          .collect(Collectors.toList());
+
+      checkpoint(file, key, guesstimatedLabelingFunctions);
+      return guesstimatedLabelingFunctions;
+    }
   }
 
   /**
@@ -377,34 +453,42 @@ public final class Repository {
 
     File file = fileLabelModel(label);
 
-    if (file.exists()) {
-      return Helpers.deserialize(file.getAbsolutePath());
-    }
+    synchronized (lock(file)) {
 
-    Set<IGoldLabel<String>> goldLabels = pagesAsGoldLabels(label);
-    List<Set<IGoldLabel<String>>> devTrainTest = IGoldLabel.split(goldLabels, true, 0.0, 0.75);
-    List<IGoldLabel<String>> train = new ArrayList<>(devTrainTest.get(1));
-    List<IGoldLabel<String>> test = new ArrayList<>(devTrainTest.get(2));
+      // The labeling functions are identified by their own key and by their names i.e. patterns
+      String key = key(label, checkpointKey(fileLabelingFunctions(label)),
+          labelingFunctions.stream().map(AbstractLabelingFunction::name)
+              .collect(Collectors.toList()),
+          metric);
 
-    Preconditions.checkState(train.size() + test.size() == goldLabels.size(),
-        "inconsistency found in the number of gold labels in train/test datasets : %s expected vs %s found",
-        goldLabels.size(), train.size() + test.size());
+      if (isCheckpointed(file, key)) {
+        return Helpers.deserialize(file.getAbsolutePath());
+      }
+
+      Set<IGoldLabel<String>> goldLabels = pagesAsGoldLabels(label);
+      List<Set<IGoldLabel<String>>> devTrainTest = IGoldLabel.split(goldLabels, true, 0.0, 0.75);
+      List<IGoldLabel<String>> train = new ArrayList<>(devTrainTest.get(1));
+      List<IGoldLabel<String>> test = new ArrayList<>(devTrainTest.get(2));
 
-    TreeLabelModel<String> labelModel = new TreeLabelModel<>(labelingFunctions, metric);
-    labelModel.fit(train);
+      Preconditions.checkState(train.size() + test.size() == goldLabels.size(),
+          "inconsistency found in the number of gold labels in train/test datasets : %s expected vs %s found",
+          goldLabels.size(), train.size() + test.size());
 
-    List<IGoldLabel<String>> predictions = test.stream()
-        .map(goldLabel -> newGoldLabel(goldLabel,
-            labelModel.predict(Lists.newArrayList(goldLabel.data())).get(0)))
-        .collect(Collectors.toList());
+      TreeLabelModel<String> labelModel = new TreeLabelModel<>(labelingFunctions, metric);
+      labelModel.fit(train);
 
-    ConfusionMatrix confusionMatrix = IGoldLabel.confusionMatrix(predictions);
+      List<IGoldLabel<String>> predictions = test.stream()
+          .map(goldLabel -> newGoldLabel(goldLabel, labelModel.predictOne(goldLabel.data())))
+          .collect(Collectors.toList());
 
-    labelModel.f1(confusionMatrix.f1Score());
-    labelModel.mcc(confusionMatrix.matthewsCorrelationCoefficient());
+      ConfusionMatrix confusionMatrix = IGoldLabel.confusionMatrix(predictions);
 
-    Helpers.serialize(file.getAbsolutePath(), labelModel);
-    return labelModel;
+      labelModel.f1(confusionMatrix.f1Score());
+      labelModel.mcc(confusionMatrix.matthewsCorrelationCoefficient());
+
+      checkpoint(file, key, labelModel);
+      return labelModel;
+    }
   }
 
   /**
@@ -427,54 +511,83 @@ public final class Repository {
 
     File file = fileClassifier(label);
 
-    if (file.exists()) {
-      return Helpers.deserialize(file.getAbsolutePath());
-    }
+    synchronized (lock(file)) {
 
-    Set<IGoldLabel<String>> goldLabels = pagesAsGoldLabels(label);
-    List<Set<IGoldLabel<String>>> devTrainTest = IGoldLabel.split(goldLabels, true, 0.0, 0.75);
-    List<IGoldLabel<String>> train = new ArrayList<>(devTrainTest.get(1));
-    List<IGoldLabel<String>> test = new ArrayList<>(devTrainTest.get(2));
-
-    Preconditions.checkState(train.size() + test.size() == goldLabels.size(),
-        "inconsistency found in the number of gold labels in train/test datasets : %s expected vs %s found",
-        goldLabels.size(), train.size() + test.size());
-
-    List<FeatureVector<Double>> actuals = train.stream().map(IGoldLabel::data)
-        .map(countVectorizer(alphabet, maxGroupSize_)).collect(Collectors.toList());
-
-    List<Integer> predictions =
-        labelModel.predict(train.stream().map(IGoldLabel::data).collect(Collectors.toList()));
-
-    AbstractClassifier classifier;
-
-    if (eClassifier.KNN.equals(clazzifier)) {
-      classifier = new KNearestNeighborClassifier();
-    } else if (eClassifier.LDA.equals(clazzifier)) {
-      classifier = new LinearDiscriminantAnalysisClassifier();
-    } else if (eClassifier.FLD.equals(clazzifier)) {
-      classifier = new FisherLinearDiscriminantClassifier();
-    } else if (eClassifier.QDA.equals(clazzifier)) {
-      classifier = new QuadraticDiscriminantAnalysisClassifier();
-    } else if (eClassifier.RDA.equals(clazzifier)) {
-      classifier = new RegularizedDiscriminantAnalysisClassifier();
-    } else {
-      classifier = new LogisticRegressionClassifier();
-    }
+      // The classifier is identified by its actual inputs i.e. the alphabet and the label model
+      // outputs, not by the checkpointed artifacts : a label model refitted in memory (see
+      // TreeLabelModel.update()) or an edited alphabet never gets back a stale classifier. The
+      // price to pay is a pass of the label model over the gold labels, even on a cache hit
+      List<IGoldLabel<String>> goldLabels = new ArrayList<>(pagesAsGoldLabels(label));
+      goldLabels.sort(Comparator.comparing((IGoldLabel<String> goldLabel) -> goldLabel.id())
+          .thenComparing(IGoldLabel::data));
 
-    classifier.train(actuals, predictions);
+      double[][] probabilities = labelModel
+          .predictProba(goldLabels.stream().map(IGoldLabel::data).collect(Collectors.toList()));
+      Map<IGoldLabel<String>, double[]> targets = new IdentityHashMap<>();
 
-    List<IGoldLabel<String>> newPredictions = test.stream()
-        .map(goldLabel -> newGoldLabel(goldLabel, predict(alphabet, classifier, goldLabel.data())))
-        .collect(Collectors.toList());
+      for (int i = 0; i < goldLabels.size(); i++) {
+        targets.put(goldLabels.get(i), probabilities[i]);
+      }
 
-    ConfusionMatrix confusionMatrix = IGoldLabel.confusionMatrix(newPredictions);
+      String key = key(label, maxGroupSize_, fingerprint(alphabet), fingerprint(probabilities),
+          clazzifier);
 
-    classifier.f1(confusionMatrix.f1Score());
-    classifier.mcc(confusionMatrix.matthewsCorrelationCoefficient());
+      if (isCheckpointed(file, key)) {
+        return Helpers.deserialize(file.getAbsolutePath());
+      }
 
-    Helpers.serialize(file.getAbsolutePath(), classifier);
-    return classifier;
+      List<Set<IGoldLabel<String>>> devTrainTest = IGoldLabel.split(goldLabels, true, 0.0, 0.75);
+      List<IGoldLabel<String>> train = new ArrayList<>(devTrainTest.get(1));
+      List<IGoldLabel<String>> test = new ArrayList<>(devTrainTest.get(2));
+
+      Preconditions.checkState(train.size() + test.size() == goldLabels.size(),
+          "inconsistency found in the number of gold labels in train/test datasets : %s expected vs %s found",
+          goldLabels.size(), train.size() + test.size());
+
+      // Vectorize the texts directly into the training matrix
+      double[][] actuals = new double[train.size()][alphabet.size()];
+      IntStream.range(0, train.size()).parallel()
+          .forEach(i -> countVectorizer(alphabet, maxGroupSize_, train.get(i).data(), actuals[i]));
+
+      double[][] trainProbabilities =
+          train.stream().map(targets::get).toArray(double[][]::new);
+
+      AbstractClassifier classifier;
+
+      if (eClassifier.KNN.equals(clazzifier)) {
+        classifier = new KNearestNeighborClassifier();
+      } else if (eClassifier.ANN.equals(clazzifier)) {
+        classifier = new ApproximateNearestNeighborClassifier();
+      } else if (eClassifier.LDA.equals(clazzifier)) {
+        classifier = new LinearDiscriminantAnalysisClassifier();
+      } else if (eClassifier.FLD.equals(clazzifier)) {
+        classifier = new FisherLinearDiscriminantClassifier();
+      } else if (eClassifier.QDA.equals(clazzifier)) {
+        classifier = new QuadraticDiscriminantAnalysisClassifier();
+      } else if (eClassifier.RDA.equals(clazzifier)) {
+        classifier = new RegularizedDiscriminantAnalysisClassifier();
+      } else if (eClassifier.ONLINE_LOGIT.equals(clazzifier)) {
+        classifier = new OnlineLogisticRegressionClassifier(alphabet.size());
+      } else {
+        classifier = new LogisticRegressionClassifier();
+      }
+
+      classifier.train(actuals, trainProbabilities);
+
+      int[] testPredictions = predict(alphabet, classifier,
+          test.stream().map(IGoldLabel::data).collect(Collectors.toList()));
+      List<IGoldLabel<String>> newPredictions = IntStream.range(0, test.size())
+          .mapToObj(i -> newGoldLabel(test.get(i), testPredictions[i]))
+          .collect(Collectors.toList());
+
+      ConfusionMatrix confusionMatrix = IGoldLabel.confusionMatrix(newPredictions);
+
+      classifier.f1(confusionMatrix.f1Score());
+      classifier.mcc(confusionMatrix.matthewsCorrelationCoefficient());
+
+      checkpoint(file, key, classifier);
+      return classifier;
+    }
   }
 
   /**
@@ -490,37 +603,42 @@ public final class Repository {
 
     File file = fileAlphabet(label);
 
-    if (file.exists()) {
-      return Helpers.deserialize(file.getAbsolutePath());
-    }
+    synchronized (lock(file)) {
 
-    Dictionary alphabet = new Dictionary();
-    Map<String, Double> features = new HashMap<>();
-
-    // Load accepted gold labels and extract features
-    pagesAsGoldLabels(label).stream()
-        .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
-        .map(IGoldLabel::data)
-        .forEach(text -> Helpers.features(maxGroupSize_, text).forEach((feature, weight) -> {
-          if (!features.containsKey(feature)) {
-            features.put(feature, weight);
-          } else {
-            features.put(feature, Math.max(features.get(feature), weight));
-          }
-        }));
-
-    // Remove low cardinality features
-    features.entrySet().removeIf(feature -> feature.getValue() < 0.01);
+      String key = key(label, maxGroupSize_);
 
-    // Build the alphabet from the feature set
-    features.forEach((feature, weight) -> {
-      if (!alphabet.containsKey(feature)) {
-        alphabet.put(feature, alphabet.size());
+      if (isCheckpointed(file, key)) {
+        return Helpers.deserialize(file.getAbsolutePath());
       }
-    });
 
-    Helpers.serialize(file.getAbsolutePath(), alphabet);
-    return alphabet;
+      Dictionary alphabet = new Dictionary();
+      Map<String, Double> features = new HashMap<>();
+
+      // Load accepted gold labels and extract features
+      pagesAsGoldLabels(label).stream()
+          .filter(goldLabel -> goldLabel.isTruePositive() || goldLabel.isFalseNegative())
+          .map(IGoldLabel::data)
+          .forEach(text -> Helpers.features(maxGroupSize_, text).forEach((feature, weight) -> {
+            if (!features.containsKey(feature)) {
+              features.put(feature, weight);
+            } else {
+              features.put(feature, Math.max(features.get(feature), weight));
+            }
+          }));
+
+      // Remove low cardinality features
+      features.entrySet().removeIf(feature -> feature.getValue() < 0.01);
+
+      // Build the alphabet from the feature set
+      features.forEach((feature, weight) -> {
+        if (!alphabet.containsKey(feature)) {
+          alphabet.put(feature, alphabet.size());
+        }
+      });
+
+      checkpoint(file, key, alphabet);
+      return alphabet;
+    }
   }
 
   /**
@@ -535,7 +653,23 @@ public final class Repository {
     Preconditions.checkNotNull(labelModel, "labelModel should not be null");
     Preconditions.checkNotNull(text, "text should not be null");
 
-    return labelModel.predict(Lists.newArrayList(text)).get(0);
+    return labelModel.predictOne(text);
+  }
+
+  /**
+   * Classify a batch of texts. Texts are classified in parallel.
+   *
+   * @param labelModel the label model to use.
+   * @param texts      the texts to classify.
+   * @return a label in {OK, KO} for each text.
+   */
+  public int[] predict(AbstractLabelModel<String> labelModel, List<String> texts) {
+
+    Preconditions.checkNotNull(labelModel, "labelModel should not be null");
+    Preconditions.checkNotNull(texts, "texts should not be null");
+
+    return IntStream.range(0, texts.size()).parallel()
+        .map(i -> labelModel.predictOne(texts.get(i))).toArray();
   }
 
   /**
@@ -552,7 +686,137 @@ public final class Repository {
     Preconditions.checkNotNull(classifier, "classifier should not be null");
     Preconditions.checkNotNull(text, "text should not be null");
 
-    return classifier.predict(countVectorizer(alphabet, maxGroupSize_).apply(text));
+    double[] vector = new double[alphabet.size()];
+    countVectorizer(alphabet, maxGroupSize_, text, vector);
+
+    return classifier.predict(new double[][] {vector})[0];
+  }
+
+  /**
+   * Classify a given text.
+   *
+   * @param alphabet the alphabet to use.
+   * @param scorer   the scorer to use.
+   * @param text     the text to classify.
+   * @return a label in {OK, KO}.
+   */
+  public int predict(Dictionary alphabet, LinearScorer scorer, String text) {
+
+    Preconditions.checkNotNull(alphabet, "alphabet should not be null");
+    Preconditions.checkNotNull(scorer, "scorer should not be null");
+    Preconditions.checkNotNull(text, "text should not be null");
+    Preconditions.checkArgument(scorer.nbFeatures() == alphabet.size(),
+        "Invalid number of features : %s found vs %s expected", scorer.nbFeatures(),
+        alphabet.size());
+
+    // Only the ids of the active features are needed : do not build a dense vector
+    int[] features = Helpers.features(maxGroupSize_, text).keySet().stream()
+        .filter(alphabet::containsKey).mapToInt(alphabet::id).toArray();
+
+    return scorer.predict(features);
+  }
+
+  /**
+   * Classify a batch of texts. Texts are vectorized and scored
+   * {@link AbstractClassifier#BATCH_SIZE} at a time, in parallel.
+   *
+   * @param alphabet   the alphabet to use.
+   * @param classifier the classifier to use.
+   * @param texts      the texts to classify.
+   * @return a label in {OK, KO} for each text.
+   */
+  public int[] predict(Dictionary alphabet, AbstractClassifier classifier, List<String> texts) {
+
+    Preconditions.checkNotNull(alphabet, "alphabet should not be null");
+    Preconditions.checkNotNull(classifier, "classifier should not be null");
+    Preconditions.checkNotNull(texts, "texts should not be null");
+
+    int batchSize = AbstractClassifier.BATCH_SIZE;
+    int nbBatches = (texts.size() + batchSize - 1) / batchSize;
+    int[] predictions = new int[texts.size()];
+
+    // Vectorize one batch at a time : a dense vector is as large as the alphabet
+    IntStream.range(0, nbBatches).parallel().forEach(batch -> {
+
+      int from = batch * batchSize;
+      int to = Math.min(texts.size(), from + batchSize);
+      double[][] instances = new double[to - from][alphabet.size()];
+
+      for (int i = from; i < to; i++) {
+        countVectorizer(alphabet, maxGroupSize_, texts.get(i), instances[i - from]);
+      }
+      System.arraycopy(classifier.predict(instances), 0, predictions, from, instances.length);
+    });
+    return predictions;
+  }
+
+  /**
+   * Evaluate a label model and a classifier against the pages of a given label. The gold labels
+   * are loaded once and both models are evaluated in the same pass, one batch at a time, with
+   * batches processed in parallel. Predictions are directly counted i.e. no intermediate gold label
+   * is created.
+   *
+   * @param label      the label.
+   * @param alphabet   the alphabet used to train the classifier.
+   * @param labelModel the label model to evaluate.
+   * @param classifier the classifier to evaluate.
+   * @return the label model confusion matrix (key) and the classifier confusion matrix (value).
+   */
+  public Map.Entry<ConfusionMatrix, ConfusionMatrix> evaluate(String label, Dictionary alphabet,
+      AbstractLabelModel<String> labelModel, AbstractClassifier classifier) {
+
+    Preconditions.checkState(isInitialized_, "init() should be called first");
+    Preconditions.checkNotNull(label, "label should not be null");
+    Preconditions.checkNotNull(alphabet, "alphabet should not be null");
+    Preconditions.checkNotNull(labelModel, "labelModel should not be null");
+    Preconditions.checkNotNull(classifier, "classifier should not be null");
+
+    List<IGoldLabel<String>> goldLabels = new ArrayList<>(pagesAsGoldLabels(label));
+    int batchSize = AbstractClassifier.BATCH_SIZE;
+    int nbBatches = (goldLabels.size() + batchSize - 1) / batchSize;
+
+    // For each batch, the label model counts are in [0, 4) and the classifier counts in [4, 8)
+    int[][] counts = new int[nbBatches][8];
+
+    IntStream.range(0, nbBatches).parallel().forEach(batch -> {
+
+      int from = batch * batchSize;
+      int to = Math.min(goldLabels.size(), from + batchSize);
+      double[][] instances = new double[to - from][alphabet.size()];
+
+      for (int i = from; i < to; i++) {
+        countVectorizer(alphabet, maxGroupSize_, goldLabels.get(i).data(), instances[i - from]);
+      }
+
+      int[] predictions = classifier.predict(instances);
+
+      for (int i = from; i < to; i++) {
+
+        IGoldLabel<String> goldLabel = goldLabels.get(i);
+        boolean isOk = goldLabel.isTruePositive() || goldLabel.isFalseNegative();
+
+        count(counts[batch], 0, isOk, labelModel.predictOne(goldLabel.data()));
+        count(counts[batch], 4, isOk, predictions[i - from]);
+      }
+    });
+
+    ConfusionMatrix labelModelConfusionMatrix = new ConfusionMatrix();
+    ConfusionMatrix classifierConfusionMatrix = new ConfusionMatrix();
+
+    for (int[] count : counts) {
+
+      labelModelConfusionMatrix.addTruePositives(count[0]);
+      labelModelConfusionMatrix.addTrueNegatives(count[1]);
+      labelModelConfusionMatrix.addFalsePositives(count[2]);
+      labelModelConfusionMatrix.addFalseNegatives(count[3]);
+
+      classifierConfusionMatrix.addTruePositives(count[4]);
+      classifierConfusionMatrix.addTrueNegatives(count[5]);
+      classifierConfusionMatrix.addFalsePositives(count[6]);
+      classifierConfusionMatrix.addFalseNegatives(count[7]);
+    }
+    return new AbstractMap.SimpleImmutableEntry<>(labelModelConfusionMatrix,
+        classifierConfusionMatrix);
   }
 
   /**
@@ -571,18 +835,27 @@ public final class Repository {
     Preconditions.checkNotNull(labelingFunctions, "labelingFunctions should not be null");
     Preconditions.checkNotNull(text, "text should not be null");
 
-    int prediction = predict(labelModel, text);
+    // Each labeling function scans the text at most once : its matches give both its output, used
+    // to classify the text, and the offsets of its keywords, used to extract the snippet
+    Map<String, List<Span>> matches = new HashMap<>();
+    Function<AbstractLabelingFunction<String>, List<Span>> spans =
+        lf -> matches.computeIfAbsent(lf.name(), name -> lf.spans(text));
+
+    int prediction = labelModel instanceof TreeLabelModel
+        ? ((TreeLabelModel<String>) labelModel)
+            .predictOne(lf -> lf.output(spans.apply(lf)).orElseGet(() -> lf.apply(text)))
+        : predict(labelModel, text);
 
     if (prediction != OK) {
       return Optional.empty();
     }
 
-    List<String> keywords = Helpers.keywords(labelingFunctions, text);
+    List<Span> keywords = Helpers.spans(labelingFunctions.stream().map(spans));
 
     if (keywords.isEmpty()) {
       return Optional.empty();
     }
-    return Optional.ofNullable(SnippetExtractor.extract(keywords, text, 300, 50, ""));
+    return Optional.ofNullable(Helpers.snippet(keywords, text, 300, 50, ""));
   }
 
   /**
@@ -610,12 +883,12 @@ public final class Repository {
       return Optional.empty();
     }
 
-    List<String> keywords = Helpers.keywords(labelingFunctions, text);
+    List<Span> keywords = Helpers.spans(labelingFunctions, text);
 
     if (keywords.isEmpty()) {
       return Optional.empty();
     }
-    return Optional.ofNullable(SnippetExtractor.extract(keywords, text, 300, 50, ""));
+    return Optional.ofNullable(Helpers.snippet(keywords, text, 300, 50, ""));
   }
 
   /**
@@ -647,7 +920,27 @@ public final class Repository {
         false, false);
   }
 
-  private Set<FactAndDocument> factsAndDocuments(File facts, File documents,
+  /**
+   * Count a prediction. The counts are stored as {TP, TN, FP, FN} starting at a given offset.
+   *
+   * @param counts     the counts.
+   * @param offset     the offset of the TP count.
+   * @param isOk       true iif the expected label is OK, false otherwise.
+   * @param prediction the prediction in {OK, KO}.
+   */
+  private static void count(int[] counts, int offset, boolean isOk, int prediction) {
+
+    Preconditions.checkArgument(prediction == OK || prediction == KO,
+        "the prediction should be in {OK, KO}");
+
+    if (prediction == OK) {
+      counts[offset + (isOk ? 0 : 2)]++;
+    } else {
+      counts[offset + (isOk ? 3 : 1)]++;
+    }
+  }
+
+  private synchronized Set<FactAndDocument> factsAndDocuments(File facts, File documents,
       boolean withProgressBar) {
 
     File file = fileFactsAndDocuments();
@@ -667,7 +960,7 @@ public final class Repository {
     return factsAndDocuments;
   }
 
-  private Set<IGoldLabel<String>> pagesAsGoldLabels(File facts, File documents,
+  private synchronized Set<IGoldLabel<String>> pagesAsGoldLabels(File facts, File documents,
       boolean withProgressBar) {
 
     File file = filePagesAsGoldLabels();
@@ -685,8 +978,8 @@ public final class Repository {
     return goldLabels;
   }
 
-  private Set<IGoldLabel<String>> factsAsGoldLabels(File facts, File documents, boolean resize,
-      boolean withProgressBar) {
+  private synchronized Set<IGoldLabel<String>> factsAsGoldLabels(File facts, File documents,
+      boolean resize, boolean withProgressBar) {
 
     File file = fileFactsAsGoldLabels();
 
@@ -702,24 +995,57 @@ public final class Repository {
     return goldLabels;
   }
 
-  private Function<String, FeatureVector<Double>> countVectorizer(Dictionary alphabet,
-      int maxGroupSize) {
+  /**
+   * Build a {@link FingerPrint} from a stream of gold labels. The gold labels are consumed one at a
+   * time and only the top {@link FingerPrint#DEFAULT_PROFILE_SIZE} n-grams are kept.
+   *
+   * @param category   the fingerprint category.
+   * @param goldLabels the gold labels.
+   * @return a {@link FingerPrint}.
+   */
+  private FingerPrint fingerPrint(String category, Stream<IGoldLabel<String>> goldLabels) {
+
+    Preconditions.checkNotNull(category, "category should not be null");
+    Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
+
+    IntSummaryStatistics lengths = new IntSummaryStatistics();
+
+    FingerPrint fingerPrint = new FingerPrint();
+    fingerPrint.category(category);
+    fingerPrint.create(goldLabels.peek(goldLabel -> lengths.accept(goldLabel.data().length()))
+        .map(goldLabel -> sanitize(goldLabel.data()) + "\n\n\n").iterator(),
+        FingerPrint.DEFAULT_PROFILE_SIZE);
+    fingerPrint.avgLength(lengths.getAverage());
+
+    return fingerPrint;
+  }
+
+  /**
+   * Write the binary count vector of a given text into a preallocated row.
+   *
+   * @param alphabet     the alphabet to use.
+   * @param maxGroupSize the maximum number of tokens in a feature.
+   * @param text         the text to vectorize.
+   * @param vector       the row to fill. Its length must be equal to the alphabet size.
+   */
+  private static void countVectorizer(Dictionary alphabet, int maxGroupSize, String text,
+      double[] vector) {
 
     Preconditions.checkNotNull(alphabet, "alphabet should not be null");
     Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+    Preconditions.checkNotNull(text, "text should not be null");
+    Preconditions.checkArgument(vector.length == alphabet.size(),
+        "Invalid vector length : %s found vs %s expected", vector.length, alphabet.size());
 
-    return text -> {
-
-      FeatureVector<Double> vector = new FeatureVector<>(alphabet.size(), 0.0);
-      Map<String, Double> features = Helpers.features(maxGroupSize, text);
+    Helpers.features(maxGroupSize, text).keySet().forEach(f -> {
+      if (alphabet.containsKey(f)) {
+        vector[alphabet.id(f)] = 1.0;
+      }
+    });
+  }
 
-      features.forEach((f, w) -> {
-        if (alphabet.containsKey(f)) {
-          vector.set(alphabet.id(f), 1.0);
-        }
-      });
-      return vector;
-    };
+  private File fileKey(File file) {
+    return new File(file.getAbsolutePath() + ".key");
   }
 
   private File fileFactsAndDocuments() {
@@ -773,11 +1099,140 @@ public final class Repository {
     return new File(outputDir_ + File.separator + label + "_alphabet.xml.gz");
   }
 
+  /**
+   * Check if an artifact has been computed from the current gold labels and a given set of
+   * parameters.
+   *
+   * @param file the artifact.
+   * @param key  the artifact key i.e. a fingerprint of the artifact inputs and parameters.
+   * @return true iif the artifact can be reused, false otherwise.
+   */
+  private boolean isCheckpointed(File file, String key) {
+    return key.equals(checkpointKey(file));
+  }
+
+  /**
+   * Returns the key of a checkpointed artifact. Downstream artifacts chain this key into their own
+   * : it is cheap to compute and does not depend on the artifact's in-memory state.
+   *
+   * @param file the artifact.
+   * @return the artifact key if the artifact has been checkpointed, a random key otherwise. Thus, an
+   *         artifact built from an artifact that has not been checkpointed is never reused.
+   */
+  private String checkpointKey(File file) {
+
+    File fileKey = fileKey(file);
+
+    if (file.exists() && fileKey.exists()) {
+      return String.join("", View.of(fileKey, false).toList());
+    }
+    return UUID.randomUUID().toString();
+  }
+
+  /**
+   * Atomically write an artifact and its key. The key is removed before the artifact is written and
+   * restored after. Thus, an interrupted write never leaves behind an artifact that looks valid.
+   *
+   * @param file     the artifact location.
+   * @param key      the artifact key i.e. a fingerprint of the artifact inputs and parameters.
+   * @param artifact the artifact to write.
+   */
+  private void checkpoint(File file, String key, Object artifact) {
+
+    File fileKey = fileKey(file);
+
+    Preconditions.checkState(!fileKey.exists() || fileKey.delete(), "%s cannot be deleted",
+        fileKey);
+
+    Helpers.serialize(file.getAbsolutePath(), artifact);
+
+    Preconditions.checkState(
+        Helpers.writeAtomically(fileKey,
+            tmp -> View.of(Collections.singletonList(key)).toFile(Function.identity(), tmp, false)),
+        "%s cannot be written", fileKey);
+  }
+
+  /**
+   * Compute an artifact key. The key depends on the content of the gold labels and on the
+   * artifact's own parameters. Upstream artifacts are identified by their own key (see
+   * {@link #checkpointKey(File)}) or, when they are passed in by the caller, by a fingerprint of
+   * their content. Thus, when an upstream artifact or a parameter changes, the key of every
+   * downstream artifact changes too.
+   *
+   * @param parameters the artifact parameters and the keys of its upstream artifacts.
+   * @return a key.
+   */
+  private String key(Object... parameters) {
+    return Helpers.hash(goldLabelsKey(), parameters);
+  }
+
+  /**
+   * Compute a fingerprint of an alphabet i.e. of its (feature, id) pairs.
+   *
+   * @param alphabet the alphabet.
+   * @return a fingerprint.
+   */
+  private static String fingerprint(Dictionary alphabet) {
+
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+
+    alphabet.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue()
+            .thenComparing(Map.Entry.comparingByKey()))
+        .forEach(entry -> hasher.putInt(entry.getValue()).putString(entry.getKey(),
+            StandardCharsets.UTF_8));
+
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Compute a fingerprint of the label model outputs.
+   *
+   * @param probabilities probabilities[n][k] with n the number of data points and k the number of
+   *        distinct labels.
+   * @return a fingerprint.
+   */
+  private static String fingerprint(double[][] probabilities) {
+
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+
+    for (double[] row : probabilities) {
+      for (double probability : row) {
+        hasher.putDouble(probability);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  private synchronized String goldLabelsKey() {
+
+    if (goldLabelsKey_ == null) {
+
+      Hasher hasher = Hashing.murmur3_128().newHasher();
+
+      for (File file : new File[] {filePagesAsGoldLabels(), fileFactsAsGoldLabels()}) {
+        if (file.exists()) {
+          try {
+            hasher.putBytes(Files.asByteSource(file).hash(Hashing.murmur3_128()).asBytes());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }
+      goldLabelsKey_ = hasher.hash().toString();
+    }
+    return goldLabelsKey_;
+  }
+
+  private Object lock(File file) {
+    return locks_.computeIfAbsent(file.getAbsolutePath(), f -> new Object());
+  }
+
   private String sanitize(String str) {
     return Strings.nullToEmpty(str).replaceAll(SANITIZE_SNIPPET, " ");
   }
 
   public enum eClassifier {
-    KNN, LDA, FLD, QDA, RDA, LOGIT
+    KNN, ANN, LDA, FLD, QDA, RDA, LOGIT, ONLINE_LOGIT
   }
 }
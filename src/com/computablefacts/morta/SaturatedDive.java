@@ -5,17 +5,24 @@ import static com.computablefacts.morta.Repository.REJECT;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.computablefacts.asterix.ConfusionMatrix;
-import com.computablefacts.asterix.SnippetExtractor;
+import com.computablefacts.asterix.Span;
 import com.computablefacts.asterix.View;
 import com.computablefacts.asterix.codecs.JsonCodec;
 import com.computablefacts.asterix.console.ConsoleApp;
+import com.computablefacts.logfmt.LogFormatter;
 import com.computablefacts.morta.classifiers.AbstractClassifier;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
 import com.computablefacts.morta.labelmodels.AbstractLabelModel;
@@ -26,13 +33,15 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
-import com.google.common.collect.Lists;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.errorprone.annotations.CheckReturnValue;
 
 @CheckReturnValue
 final public class SaturatedDive extends ConsoleApp {
 
   private static final Logger logger_ = LoggerFactory.getLogger(SaturatedDive.class);
+  private static final HashFunction HASH = Hashing.murmur3_128();
 
   public static void main(String[] args) {
 
@@ -45,95 +54,131 @@ final public class SaturatedDive extends ConsoleApp {
     int maxGroupSize = getIntCommand(args, "max_group_size", 3);
     boolean prodigyDataset = getBooleanCommand(args, "prodigy_dataset", false);
     boolean verbose = getBooleanCommand(args, "verbose", true);
+    int parallelism = getIntCommand(args, "parallelism", 1);
 
     Preconditions.checkArgument(nbCandidatesToConsider > 0, "nbCandidatesToConsider must be > 0");
     Preconditions.checkArgument(nbLabelsToReturn > 0, "nbLabelsToReturn must be > 0");
     Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
 
     Observations observations =
         new Observations(new File(outputDir + File.separator + "observations.txt"));
-    Repository repository = new Repository(outputDir, maxGroupSize);
+
+    // Labels processed concurrently share the available cores : each label gets its own budget
+    int nbThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / parallelism);
+    Repository repository = new Repository(outputDir, maxGroupSize, nbThreads);
     Set<String> labels = repository.init(facts, documents, true, verbose).stream()
         .filter(lbl -> label == null || label.equals(lbl)).collect(Collectors.toSet());
 
-    for (String lbl : labels) {
-      try {
-        observations.add(
-            "\n================================================================================");
-        observations.add("\nThe label is " + lbl);
-        observations.add("\nBuilding alphabet...");
-
-        Dictionary alphabet = repository.alphabet(lbl);
-
-        observations.add("\nThe alphabet size is " + alphabet.size());
-        observations.add("\nGuesstimating labeling functions...");
-        observations.add("\nThe number of candidates to consider is " + nbCandidatesToConsider);
-        observations.add("\nThe number of patterns to return is " + nbLabelsToReturn);
-
-        List<AbstractLabelingFunction<String>> labelingFunctions =
-            repository.labelingFunctions(lbl, nbCandidatesToConsider, nbLabelsToReturn);
-
-        observations.add("\nThe returned patterns are : [\n  "
-            + Joiner.on(",\n  ").join(labelingFunctions.stream().map(AbstractLabelingFunction::name)
-                .collect(Collectors.toList()))
-            + "\n]");
-        observations.add("\nTraining label model...");
-        observations.add("\nThe evaluation metric is MCC");
+    if (parallelism == 1) {
+      labels.forEach(lbl -> saturate(repository, lbl, nbCandidatesToConsider, nbLabelsToReturn,
+          prodigyDataset, outputDir, observations));
+    } else {
 
-        AbstractLabelModel<String> labelModel =
-            repository.labelModel(lbl, labelingFunctions, TreeLabelModel.eMetric.MCC);
+      // Each label is processed by its own task and records its own stream of observations. These
+      // streams are merged, in order, into the main stream as soon as the tasks complete
+      ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+      List<Map.Entry<Observations, Future<?>>> tasks = new ArrayList<>();
 
-        observations.add("\nThe label model is " + labelModel.toString());
-        // observations.add("\nSummarizing labeling functions...");
-
-        // labelModel.summarize(Lists.newArrayList(repository.pagesAsGoldLabels(lbl)))
-        // .forEach(summary -> observations.add(String.format("\n%s", summary.toString())));
-
-        observations.add("\nTraining classifier...");
-        observations.add("\nThe classifier type is LOGIT");
-
-        AbstractClassifier classifier =
-            repository.classifier(lbl, alphabet, labelModel, Repository.eClassifier.LOGIT);
-        // TODO : save prodigy annotations
-
-        observations.add("\nComputing label model confusion matrix...");
-
-        List<IGoldLabel<String>> labelModelPredictions = repository.pagesAsGoldLabels(lbl).stream()
-            .map(goldLabel -> repository.newGoldLabel(goldLabel,
-                labelModel.predict(Lists.newArrayList(goldLabel.data())).get(0)))
-            .collect(Collectors.toList());
-
-        ConfusionMatrix labelModelConfusionMatrix =
-            IGoldLabel.confusionMatrix(labelModelPredictions);
+      try {
+        for (String lbl : labels) {
 
-        observations.add(labelModelConfusionMatrix.toString());
-        observations.add("Computing classifier confusion matrix...");
+          Observations obs = observations.child();
+          Future<?> future = executor.submit(() -> saturate(repository, lbl,
+              nbCandidatesToConsider, nbLabelsToReturn, prodigyDataset, outputDir, obs));
 
-        List<IGoldLabel<String>> classifierPredictions = repository.pagesAsGoldLabels(lbl).stream()
-            .map(goldLabel -> repository.newGoldLabel(goldLabel,
-                repository.predict(alphabet, classifier, goldLabel.data())))
-            .collect(Collectors.toList());
+          tasks.add(new AbstractMap.SimpleImmutableEntry<>(obs, future));
+        }
+        for (Map.Entry<Observations, Future<?>> task : tasks) {
+          try {
+            task.getValue().get();
+          } catch (ExecutionException e) {
+            task.getKey().add(Throwables.getStackTraceAsString(Throwables.getRootCause(e)));
+          }
+          task.getKey().flush();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger_.error(LogFormatter.create().message(e).formatError());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
 
-        ConfusionMatrix classifierConfusionMatrix =
-            IGoldLabel.confusionMatrix(classifierPredictions);
+    observations.flush();
+  }
 
-        observations.add(classifierConfusionMatrix.toString());
-        observations.add("Exporting prodigy dataset...");
+  private static void saturate(Repository repository, String lbl, int nbCandidatesToConsider,
+      int nbLabelsToReturn, boolean prodigyDataset, String outputDir, Observations observations) {
+
+    // The alphabet and the labeling functions are independent. The label model depends on the
+    // labeling functions. The classifier depends on both the alphabet and the label model. The
+    // label model and the classifier are evaluated together, in a single pass over the gold labels
+    try (Pipeline pipeline = new Pipeline(2)) {
+
+      Pipeline.Stage<Dictionary> alphabet =
+          pipeline.stage("alphabet", () -> repository.alphabet(lbl));
+      Pipeline.Stage<List<AbstractLabelingFunction<String>>> labelingFunctions =
+          pipeline.stage("labeling_functions",
+              () -> repository.labelingFunctions(lbl, nbCandidatesToConsider, nbLabelsToReturn));
+      Pipeline.Stage<AbstractLabelModel<String>> labelModel = pipeline.stage("label_model",
+          () -> repository.labelModel(lbl, labelingFunctions.get(), TreeLabelModel.eMetric.MCC),
+          labelingFunctions);
+      Pipeline.Stage<AbstractClassifier> classifier = pipeline.stage("classifier",
+          () -> repository.classifier(lbl, alphabet.get(), labelModel.get(),
+              Repository.eClassifier.LOGIT),
+          alphabet, labelModel);
+      Pipeline.Stage<Map.Entry<ConfusionMatrix, ConfusionMatrix>> confusionMatrices =
+          pipeline.stage("evaluation", () -> repository.evaluate(lbl, alphabet.get(),
+              labelModel.get(), classifier.get()), alphabet, labelModel, classifier);
+
+      observations.add(
+          "\n================================================================================");
+      observations.add("\nThe label is " + lbl);
+      observations.add("\nBuilding alphabet...");
+      observations.add("\nThe alphabet size is " + alphabet.get().size());
+      observations.add("\nGuesstimating labeling functions...");
+      observations.add("\nThe number of candidates to consider is " + nbCandidatesToConsider);
+      observations.add("\nThe number of patterns to return is " + nbLabelsToReturn);
+      observations.add("\nThe returned patterns are : [\n  "
+          + Joiner.on(",\n  ").join(labelingFunctions.get().stream()
+              .map(AbstractLabelingFunction::name).collect(Collectors.toList()))
+          + "\n]");
+      observations.add("\nTraining label model...");
+      observations.add("\nThe evaluation metric is MCC");
+      observations.add("\nThe label model is " + labelModel.get().toString());
+      // observations.add("\nSummarizing labeling functions...");
+
+      // labelModel.summarize(Lists.newArrayList(repository.pagesAsGoldLabels(lbl)))
+      // .forEach(summary -> observations.add(String.format("\n%s", summary.toString())));
+
+      observations.add("\nTraining classifier...");
+      observations.add("\nThe classifier type is LOGIT");
+
+      AbstractClassifier clazzifier = classifier.get();
+      // TODO : save prodigy annotations
+
+      observations.add("\nComputing label model confusion matrix...");
+      observations.add(confusionMatrices.get().getKey().toString());
+      observations.add("Computing classifier confusion matrix...");
+      observations.add(confusionMatrices.get().getValue().toString());
+      observations.add("Exporting prodigy dataset...");
+
+      if (prodigyDataset) {
+        exportTextsAsProdigyDataset(repository, lbl, alphabet.get(), clazzifier,
+            labelingFunctions.get(),
+            new File(outputDir + File.separator + lbl + "_prodigy_dataset.jsonl"));
+      }
 
-        if (prodigyDataset) {
-          exportTextsAsProdigyDataset(repository, lbl, alphabet, classifier, labelingFunctions,
-              new File(outputDir + File.separator + lbl + "_prodigy_dataset.jsonl"));
-        }
+      ConfusionMatrix matrix = confusionMatrices.get().getValue();
+      int nbTexts = matrix.nbTruePositives() + matrix.nbTrueNegatives()
+          + matrix.nbFalsePositives() + matrix.nbFalseNegatives();
 
-        observations
-            .add(String.format("\n%d texts have been exported.", classifierPredictions.size()));
+      observations.add(String.format("\n%d texts have been exported.", nbTexts));
 
-      } catch (Exception e) {
-        observations.add(Throwables.getStackTraceAsString(Throwables.getRootCause(e)));
-      }
+    } catch (Exception e) {
+      observations.add(Throwables.getStackTraceAsString(Throwables.getRootCause(e)));
     }
-
-    observations.flush();
   }
 
   private static void exportTextsAsProdigyDataset(Repository repository, String label,
@@ -149,83 +194,90 @@ final public class SaturatedDive extends ConsoleApp {
     Preconditions.checkArgument(!output.exists(), "output file should not exist : %s", output);
 
     int maxNumberOfElementsPerClass = 250;
-    Set<String> hashAccepted = new HashSet<>();
-    Set<String> hashRejected = new HashSet<>();
-
-    View.of(repository.factsAndDocuments(null)).flatten(doc -> {
-
-      // Extract all non-empty pages of all documents
-      List<String> pages = doc.unmatchedPages();
-      pages.add(doc.matchedPage());
-      return View.of(pages).filter(page -> !Strings.isNullOrEmpty(page) /* ignore empty pages */)
-          .map(page -> new AbstractMap.SimpleImmutableEntry<>(doc.id(), page));
-    }).map(entry -> {
-
-      String docId = entry.getKey();
-      String page = entry.getValue();
-
-      // Classify each page and extract a single snippet for each labeling function
-      int prediction = repository.predict(alphabet, classifier, page);
-
-      // Extract the keywords associated with the labeling functions
-      List<String> keywords = Helpers.keywords(labelingFunctions, page);
-
-      // Extract the snippet associated with the labeling functions
-      String snippet =
-          keywords.isEmpty() ? "" : SnippetExtractor.extract(keywords, page, 400, 200, "");
-
-      // Create a temporary data structure with all the relevant information
-      Annotation annotation = new Annotation();
-      annotation.id_ = docId;
-      annotation.page_ = page;
-      annotation.snippet_ = snippet;
-      annotation.labelingFunctions_ = labelingFunctions;
-      annotation.keywords_ = keywords;
-      annotation.label_ = prediction;
-
-      return annotation;
-    }).filter(annotation -> !Strings
-        .isNullOrEmpty(annotation.snippet_) /* ignore annotations with empty snippets */)
-        .map(annotation -> {
-
-          String matchedKeywords = String.join("/", annotation.keywords_);
-          String expectedAnswer = annotation.label_ == OK ? ACCEPT : REJECT;
-          Meta meta = new Meta(annotation.id_, label, expectedAnswer, matchedKeywords);
-
-          return new AnnotatedText(meta, annotation.snippet_);
-        }).filter(annotatedText -> {
-
-          // Balance the number of ACCEPT/REJECT classes
-          if (ACCEPT.equals(annotatedText.meta_.expectedAnswer_)) {
-            if (hashAccepted.contains(annotatedText.text_)) {
-              return false;
-            }
-            hashAccepted.add(annotatedText.text_);
-            return true;
-          }
-          if (hashRejected.contains(annotatedText.text_)) {
-            return false;
+    int chunkSize = 10 * repository.nbThreads();
+    Set<Long> hashAccepted = new HashSet<>();
+    Set<Long> hashRejected = new HashSet<>();
+    List<AnnotatedText> annotatedTexts = new ArrayList<>();
+
+    // Extract all non-empty pages of the label's documents
+    try (View<Map.Entry<String, String>> pages =
+        repository.streamFactsAndDocuments(label).flatten(doc -> {
+
+          List<String> texts = doc.unmatchedPages();
+          texts.add(doc.matchedPage());
+          return View.of(texts)
+              .filter(page -> !Strings.isNullOrEmpty(page) /* ignore empty pages */)
+              .map(page -> new AbstractMap.SimpleImmutableEntry<>(doc.id(), page));
+        })) {
+
+      // Pages are annotated one chunk at a time. Within a chunk, pages are annotated in parallel
+      // but annotations are consumed in order. No chunk is read once both classes are full
+      pages.partition(chunkSize).forEachRemaining((chunk, breaker) -> {
+
+        int[] predictions = repository.predict(alphabet, classifier,
+            chunk.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+
+        List<AnnotatedText> chunkAnnotatedTexts = IntStream.range(0, chunk.size()).parallel()
+            .mapToObj(i -> annotate(label, labelingFunctions, chunk.get(i).getKey(),
+                chunk.get(i).getValue(), predictions[i]))
+            .collect(Collectors.toList());
+
+        for (AnnotatedText annotatedText : chunkAnnotatedTexts) {
+
+          // Ignore annotations with empty snippets
+          if (annotatedText == null) {
+            continue;
           }
-          hashRejected.add(annotatedText.text_);
-          return true;
-        }).takeWhile(annotatedText -> hashAccepted.size() <= maxNumberOfElementsPerClass
-            && hashRejected.size() <= maxNumberOfElementsPerClass)
-        .index().peek(entry -> {
-          if (entry.getKey() % 10 == 0) {
-            System.out.printf("%d annotations exported...%n", entry.getKey());
+
+          // Balance the number of ACCEPT/REJECT classes and remove duplicate snippets
+          Set<Long> hashes =
+              ACCEPT.equals(annotatedText.meta_.expectedAnswer_) ? hashAccepted : hashRejected;
+
+          long hash = HASH.hashString(annotatedText.text_, StandardCharsets.UTF_8).asLong();
+
+          if (hashes.size() < maxNumberOfElementsPerClass && hashes.add(hash)) {
+
+            annotatedTexts.add(annotatedText);
+
+            if (annotatedTexts.size() % 10 == 0) {
+              System.out.printf("%d annotations exported...%n", annotatedTexts.size());
+            }
           }
-        }).map(Map.Entry::getValue).toFile(JsonCodec::asString, output, false);
+        }
+        if (hashAccepted.size() >= maxNumberOfElementsPerClass
+            && hashRejected.size() >= maxNumberOfElementsPerClass) {
+          breaker.stop();
+        }
+      });
+    }
+
+    View.of(annotatedTexts).toFile(JsonCodec::asString, output, false);
   }
 
-  private final static class Annotation {
+  /**
+   * Extract a single snippet for the labeling functions matching a given page.
+   *
+   * @return an annotation or {@code null} if no labeling function matches the page.
+   */
+  private static AnnotatedText annotate(String label,
+      List<AbstractLabelingFunction<String>> labelingFunctions, String docId, String page,
+      int prediction) {
+
+    // Locate the keywords associated with the labeling functions
+    List<Span> spans = Helpers.spans(labelingFunctions, page);
+    List<String> keywords = Helpers.keywords(spans);
+
+    // Extract the snippet associated with the labeling functions
+    String snippet = spans.isEmpty() ? "" : Helpers.snippet(spans, page, 400, 200, "");
+
+    if (Strings.isNullOrEmpty(snippet)) {
+      return null;
+    }
 
-    public String id_;
-    public String page_;
-    public String snippet_;
-    public List<AbstractLabelingFunction<String>> labelingFunctions_;
-    public List<String> keywords_;
-    public int label_;
+    String matchedKeywords = String.join("/", keywords);
+    String expectedAnswer = prediction == OK ? ACCEPT : REJECT;
+    Meta meta = new Meta(docId, label, expectedAnswer, matchedKeywords);
 
-    public Annotation() {}
+    return new AnnotatedText(meta, snippet);
   }
 }
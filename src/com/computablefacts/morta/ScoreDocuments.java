@@ -0,0 +1,164 @@
+package com.computablefacts.morta;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.computablefacts.asterix.Document;
+import com.computablefacts.asterix.View;
+import com.computablefacts.asterix.codecs.JsonCodec;
+import com.computablefacts.asterix.console.ConsoleApp;
+import com.computablefacts.logfmt.LogFormatter;
+import com.computablefacts.morta.classifiers.AbstractClassifier;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
+import com.google.errorprone.annotations.CheckReturnValue;
+
+/**
+ * Score unseen documents using the models trained by {@link SaturatedDive}.
+ *
+ * Documents are streamed from a gzipped JSONL file and split into pages. Pages are scored a batch
+ * at a time against every trained label : the classifier is used when one has been trained, the
+ * label model otherwise. Labels are scored in parallel and, for a given label, the pages of a batch
+ * are scored in parallel too. Results are streamed to a gzipped JSONL file : at most one batch of
+ * pages is held in memory at any given time.
+ */
+@CheckReturnValue
+final public class ScoreDocuments extends ConsoleApp {
+
+  private static final Logger logger_ = LoggerFactory.getLogger(ScoreDocuments.class);
+
+  public static void main(String[] args) {
+
+    File documents = getFileCommand(args, "documents", null);
+    String outputDir = getStringCommand(args, "output_directory", null);
+    String outputFile = getStringCommand(args, "output_file",
+        outputDir + File.separator + "scored_pages.jsonl.gz");
+    String label = getStringCommand(args, "label", null);
+    int maxGroupSize = getIntCommand(args, "max_group_size", 3);
+    int batchSize = getIntCommand(args, "batch_size", 10 * AbstractClassifier.BATCH_SIZE);
+
+    Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+    Preconditions.checkArgument(batchSize > 0, "batchSize must be > 0");
+
+    File output = new File(outputFile);
+
+    Preconditions.checkState(!output.exists(), "output file already exists : %s", output);
+
+    Observations observations =
+        new Observations(new File(outputDir + File.separator + "observations.txt"));
+    Repository repository = new Repository(outputDir, maxGroupSize);
+    Map<String, ModelBundle> scorers = new TreeMap<>();
+
+    repository.trainedLabels().stream().filter(lbl -> label == null || label.equals(lbl))
+        .forEach(lbl -> ModelBundle.load(repository, lbl)
+            .ifPresent(bundle -> scorers.put(lbl, bundle)));
+
+    Preconditions.checkState(!scorers.isEmpty(), "no trained model found in %s", outputDir);
+
+    observations.add(
+        "\n================================================================================");
+    observations.add("\nThe scored labels are " + scorers.keySet());
+
+    AtomicLong nbDocuments = new AtomicLong(0);
+    AtomicLong nbPages = new AtomicLong(0);
+    List<Long> latencies = new ArrayList<>(); // in ms, one entry per batch
+    Stopwatch stopwatch = Stopwatch.createStarted();
+
+    try (View<String> rows = View.of(documents, true)) {
+      rows.filter(row -> !Strings.isNullOrEmpty(row) /* remove empty rows */)
+          .map(ScoreDocuments::document).filter(Optional::isPresent).map(Optional::get)
+          .peek(doc -> nbDocuments.incrementAndGet()).flatten(ScoreDocuments::pages)
+          .partition(batchSize).flatten(batch -> {
+
+            Stopwatch sw = Stopwatch.createStarted();
+            List<Map<String, Object>> scoredPages = score(scorers, batch);
+            latencies.add(sw.elapsed(TimeUnit.MILLISECONDS));
+            nbPages.addAndGet(batch.size());
+
+            return View.of(scoredPages);
+          }).toFile(JsonCodec::asString, output, false, true);
+    }
+
+    stopwatch.stop();
+
+    long elapsed = Math.max(1, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    Collections.sort(latencies);
+
+    observations.add(String.format("\n%d pages from %d documents have been scored", nbPages.get(),
+        nbDocuments.get()));
+    observations.add(
+        String.format("\nThe throughput is %.1f pages/s", 1000.0 * nbPages.get() / elapsed));
+    observations.add(String.format(
+        "\nThe latency per batch of %d pages is : p50=%dms, p95=%dms, p99=%dms, max=%dms",
+        batchSize, percentile(latencies, 0.50), percentile(latencies, 0.95),
+        percentile(latencies, 0.99), percentile(latencies, 1.00)));
+    observations.flush();
+  }
+
+  private static Optional<Document> document(String row) {
+    try {
+
+      Document doc = new Document(JsonCodec.asObject(row));
+
+      // Ignore empty and non-textual documents
+      if (doc.isEmpty() || !(doc.text() instanceof String)) {
+        return Optional.empty();
+      }
+      return Optional.of(doc);
+    } catch (Exception ex) {
+      logger_.error(LogFormatter.create(true).message(ex).add("line_number", row).formatError());
+    }
+    return Optional.empty();
+  }
+
+  private static View<Map.Entry<String, Map.Entry<Integer, String>>> pages(Document doc) {
+
+    String docId = doc.docId();
+
+    // Pages are 1-based. Empty pages are not scored
+    return View.of(FactAndDocument.pages((String) doc.text())).index()
+        .filter(page -> !Strings.isNullOrEmpty(page.getValue()))
+        .map(page -> new AbstractMap.SimpleImmutableEntry<>(docId, page));
+  }
+
+  private static List<Map<String, Object>> score(Map<String, ModelBundle> scorers,
+      List<Map.Entry<String, Map.Entry<Integer, String>>> batch) {
+
+    List<String> texts =
+        batch.stream().map(page -> page.getValue().getValue()).collect(Collectors.toList());
+
+    Map<String, int[]> predictions = scorers.entrySet().parallelStream().collect(
+        Collectors.toMap(Map.Entry::getKey, scorer -> scorer.getValue().predict(texts)));
+
+    return IntStream.range(0, batch.size()).mapToObj(i -> {
+
+      Map<String, Object> labels = new TreeMap<>();
+      predictions.forEach((lbl, preds) -> labels.put(lbl, preds[i] == OK ? "OK" : "KO"));
+
+      Map<String, Object> scoredPage = new LinkedHashMap<>();
+      scoredPage.put("id", batch.get(i).getKey());
+      scoredPage.put("page", batch.get(i).getValue().getKey());
+      scoredPage.put("labels", labels);
+
+      return scoredPage;
+    }).collect(Collectors.toList());
+  }
+
+  private static long percentile(List<Long> sortedValues, double percentile) {
+    if (sortedValues.isEmpty()) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sortedValues.size()) - 1;
+    return sortedValues.get(Math.max(0, index));
+  }
+}
@@ -0,0 +1,412 @@
+package com.computablefacts.morta;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.computablefacts.asterix.codecs.JsonCodec;
+import com.computablefacts.asterix.console.ConsoleApp;
+import com.computablefacts.logfmt.LogFormatter;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.io.CharStreams;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A lightweight HTTP server that scores texts using the models saved to a {@link Repository}.
+ *
+ * Endpoints :
+ *
+ * <ul>
+ * <li>{@code POST /predict} : the request body is the text to classify.</li>
+ * <li>{@code POST /predict/batch} : the request body is a JSON array of texts.</li>
+ * <li>{@code POST /predictAndGetFocusPoint} : the request body is the text to classify.</li>
+ * <li>{@code POST /predictAndGetFocusPoint/batch} : the request body is a JSON array of texts.</li>
+ * <li>{@code POST /reload} : reload the models from the repository.</li>
+ * <li>{@code GET /stats} : the latency histogram of each endpoint.</li>
+ * </ul>
+ *
+ * The scoring endpoints accept an optional {@code label} query parameter. If the parameter is
+ * missing, texts are scored against all labels.
+ *
+ * Requests are handled by virtual threads when the JVM supports them (JDK 21+) and by a cached
+ * thread pool otherwise. A reload builds a new set of models and atomically swaps it with the
+ * current one : in-flight requests complete using the models they started with.
+ */
+@ThreadSafe
+@CheckReturnValue
+final public class ScoringServer extends ConsoleApp implements AutoCloseable {
+
+  private static final Logger logger_ = LoggerFactory.getLogger(ScoringServer.class);
+
+  private final Repository repository_;
+  private final HttpServer server_;
+  private final ExecutorService executor_;
+  private final AtomicReference<Map<String, ModelBundle>> models_ =
+      new AtomicReference<>(Collections.emptyMap());
+  private final ConcurrentMap<String, LatencyHistogram> histograms_ = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param repository the repository the models have been saved to.
+   * @param port       the port to listen to. If {@code port} is 0, an ephemeral port is chosen.
+   */
+  public ScoringServer(Repository repository, int port) {
+
+    Preconditions.checkNotNull(repository, "repository should not be null");
+    Preconditions.checkArgument(port >= 0, "port must be >= 0");
+
+    repository_ = repository;
+    executor_ = newExecutor();
+
+    try {
+      server_ = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      executor_.shutdownNow();
+      throw new UncheckedIOException(e);
+    }
+
+    server_.setExecutor(executor_);
+    server_.createContext("/predict", handler("/predict", "POST", this::predict));
+    server_.createContext("/predict/batch", handler("/predict/batch", "POST", this::predictBatch));
+    server_.createContext("/predictAndGetFocusPoint",
+        handler("/predictAndGetFocusPoint", "POST", this::focusPoint));
+    server_.createContext("/predictAndGetFocusPoint/batch",
+        handler("/predictAndGetFocusPoint/batch", "POST", this::focusPointBatch));
+    server_.createContext("/reload", handler("/reload", "POST",
+        exchange -> Collections.singletonMap("labels", reload())));
+    server_.createContext("/stats", handler("/stats", "GET", exchange -> stats()));
+  }
+
+  public static void main(String[] args) {
+
+    String outputDir = getStringCommand(args, "output_directory", null);
+    int port = getIntCommand(args, "port", 8080);
+    int maxGroupSize = getIntCommand(args, "max_group_size", 3);
+
+    Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+
+    ScoringServer server = new ScoringServer(new Repository(outputDir, maxGroupSize), port);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+
+    System.out.println("The loaded labels are " + server.start());
+    System.out.println("Listening on port " + server.port());
+  }
+
+  /**
+   * Load the models and start accepting requests.
+   *
+   * @return the loaded labels.
+   */
+  @CanIgnoreReturnValue
+  public Set<String> start() {
+    Set<String> labels = reload();
+    server_.start();
+    return labels;
+  }
+
+  /**
+   * Stop accepting requests. In-flight requests are given a few seconds to complete.
+   */
+  @Override
+  public void close() {
+    server_.stop(5);
+    executor_.shutdown();
+  }
+
+  public int port() {
+    return server_.getAddress().getPort();
+  }
+
+  /**
+   * Load the models from the repository and replace the current ones. The current models remain
+   * in use until all the new models have been loaded.
+   *
+   * @return the loaded labels.
+   */
+  @CanIgnoreReturnValue
+  public synchronized Set<String> reload() {
+
+    Map<String, ModelBundle> models = new TreeMap<>();
+
+    repository_.trainedLabels().forEach(
+        label -> ModelBundle.load(repository_, label).ifPresent(model -> models.put(label, model)));
+
+    models_.set(Collections.unmodifiableMap(models));
+    return models.keySet();
+  }
+
+  /**
+   * Returns a snapshot of the latency histogram of each endpoint.
+   *
+   * @return a map whose keys are endpoints and values are histograms.
+   */
+  public Map<String, Map<String, Object>> stats() {
+    return histograms_.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+        histogram -> histogram.getValue().snapshot(), (a, b) -> a, TreeMap::new));
+  }
+
+  private static ExecutorService newExecutor() {
+    try {
+
+      // The project targets Java 8 : virtual threads must be looked up at runtime
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  private static Map<String, String> query(HttpExchange exchange) {
+
+    String query = exchange.getRequestURI().getRawQuery();
+
+    if (query == null || query.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, String> params = new HashMap<>();
+
+    for (String param : Splitter.on('&').omitEmptyStrings().split(query)) {
+
+      int index = param.indexOf('=');
+
+      if (index > 0) {
+        params.put(decode(param.substring(0, index)), decode(param.substring(index + 1)));
+      }
+    }
+    return params;
+  }
+
+  private static String decode(String str) {
+    try {
+      return URLDecoder.decode(str, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String body(HttpExchange exchange) throws IOException {
+    try (InputStreamReader reader =
+        new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+      return CharStreams.toString(reader);
+    }
+  }
+
+  private static List<String> texts(HttpExchange exchange) throws IOException {
+
+    Object[] texts = JsonCodec.asArrayOfUnknownType(body(exchange));
+
+    Preconditions.checkArgument(texts != null, "the request body should be a JSON array");
+    Preconditions.checkArgument(Arrays.stream(texts).allMatch(text -> text instanceof String),
+        "the request body should be a JSON array of strings");
+
+    return Arrays.stream(texts).map(text -> (String) text).collect(Collectors.toList());
+  }
+
+  private static void respond(HttpExchange exchange, int status, Object response)
+      throws IOException {
+
+    byte[] bytes = JsonCodec.asString(response).getBytes(StandardCharsets.UTF_8);
+
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+
+  private HttpHandler handler(String path, String method, Endpoint endpoint) {
+
+    LatencyHistogram histogram = histograms_.computeIfAbsent(path, p -> new LatencyHistogram());
+
+    return exchange -> {
+
+      long start = System.nanoTime();
+
+      try {
+        if (!path.equals(exchange.getRequestURI().getPath())) {
+          respond(exchange, 404, Collections.singletonMap("error", "unknown endpoint"));
+        } else if (!method.equals(exchange.getRequestMethod())) {
+          respond(exchange, 405, Collections.singletonMap("error", method + " expected"));
+        } else {
+          respond(exchange, 200, endpoint.handle(exchange));
+        }
+      } catch (NoSuchElementException e) {
+        respond(exchange, 404, Collections.singletonMap("error", e.getMessage()));
+      } catch (IllegalArgumentException e) {
+        respond(exchange, 400, Collections.singletonMap("error", e.getMessage()));
+      } catch (IOException | RuntimeException e) {
+        logger_.error(LogFormatter.create().message(e).formatError());
+
+        // The response headers cannot be sent twice e.g. when the client disconnects while the
+        // response body is written : in this case, the error is only logged
+        if (exchange.getResponseCode() == -1) {
+          respond(exchange, 500, Collections.singletonMap("error", String.valueOf(e.getMessage())));
+        }
+      } finally {
+        exchange.close();
+        histogram.add(System.nanoTime() - start);
+      }
+    };
+  }
+
+  /**
+   * Select the models to use. The models are captured once per request : a concurrent reload does
+   * not affect the current request.
+   */
+  private Collection<ModelBundle> models(HttpExchange exchange) {
+
+    Map<String, ModelBundle> models = models_.get();
+    String label = query(exchange).get("label");
+
+    if (label == null) {
+      return models.values();
+    }
+    if (!models.containsKey(label)) {
+      throw new NoSuchElementException("unknown label : " + label);
+    }
+    return Collections.singletonList(models.get(label));
+  }
+
+  private Map<String, Object> predict(HttpExchange exchange) throws IOException {
+
+    Collection<ModelBundle> models = models(exchange);
+    String text = body(exchange);
+
+    return predictions(models, 1, model -> new int[] {model.predict(text)}).get(0);
+  }
+
+  private List<Map<String, Object>> predictBatch(HttpExchange exchange) throws IOException {
+
+    Collection<ModelBundle> models = models(exchange);
+    List<String> texts = texts(exchange);
+
+    return predictions(models, texts.size(), model -> model.predict(texts));
+  }
+
+  private Map<String, Object> focusPoint(HttpExchange exchange) throws IOException {
+
+    Collection<ModelBundle> models = models(exchange);
+    String text = body(exchange);
+
+    return focusPoints(models, Collections.singletonList(text)).get(0);
+  }
+
+  private List<Map<String, Object>> focusPointBatch(HttpExchange exchange) throws IOException {
+
+    Collection<ModelBundle> models = models(exchange);
+    List<String> texts = texts(exchange);
+
+    return focusPoints(models, texts);
+  }
+
+  private List<Map<String, Object>> predictions(Collection<ModelBundle> models, int nbTexts,
+      Function<ModelBundle, int[]> predict) {
+
+    Map<String, int[]> predictions = models.parallelStream()
+        .collect(Collectors.toMap(ModelBundle::label, predict, (a, b) -> a, TreeMap::new));
+
+    return IntStream.range(0, nbTexts).mapToObj(i -> {
+
+      Map<String, Object> labels = new TreeMap<>();
+      predictions.forEach((label, preds) -> labels.put(label, preds[i] == OK ? "OK" : "KO"));
+
+      return Collections.<String, Object>singletonMap("labels", labels);
+    }).collect(Collectors.toList());
+  }
+
+  private List<Map<String, Object>> focusPoints(Collection<ModelBundle> models,
+      List<String> texts) {
+
+    // Only the labels for which a text has been positively classified are returned
+    return texts.parallelStream().map(text -> {
+
+      Map<String, Object> focusPoints = new TreeMap<>();
+      models.forEach(model -> model.predictAndGetFocusPoint(text)
+          .ifPresent(snippet -> focusPoints.put(model.label(), snippet)));
+
+      return Collections.<String, Object>singletonMap("focus_points", focusPoints);
+    }).collect(Collectors.toList());
+  }
+
+  @FunctionalInterface
+  private interface Endpoint {
+
+    Object handle(HttpExchange exchange) throws IOException;
+  }
+
+  /**
+   * A lock-free latency histogram with exponential buckets.
+   */
+  @ThreadSafe
+  private static final class LatencyHistogram {
+
+    // Upper bounds, in milliseconds. The last bucket holds everything above the last bound
+    private static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final AtomicLongArray counts_ = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count_ = new LongAdder();
+    private final LongAdder totalNanos_ = new LongAdder();
+
+    void add(long nanos) {
+
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      int index = IntStream.range(0, BOUNDS.length).filter(i -> millis < BOUNDS[i]).findFirst()
+          .orElse(BOUNDS.length);
+
+      counts_.incrementAndGet(index);
+      count_.increment();
+      totalNanos_.add(nanos);
+    }
+
+    Map<String, Object> snapshot() {
+
+      long count = count_.sum();
+      Map<String, Object> buckets = new LinkedHashMap<>();
+
+      for (int i = 0; i < BOUNDS.length; i++) {
+        buckets.put("<" + BOUNDS[i] + "ms", counts_.get(i));
+      }
+      buckets.put(">=" + BOUNDS[BOUNDS.length - 1] + "ms", counts_.get(BOUNDS.length));
+
+      Map<String, Object> snapshot = new LinkedHashMap<>();
+      snapshot.put("count", count);
+      snapshot.put("mean_ms",
+          count == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(totalNanos_.sum()) / 1000.0 / count);
+      snapshot.put("buckets", buckets);
+
+      return snapshot;
+    }
+  }
+}
@@ -3,16 +3,21 @@ package com.computablefacts.morta;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.ABSTAIN;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 import com.computablefacts.asterix.Generated;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Table;
+import com.google.common.primitives.Ints;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.Var;
 
+import smile.math.special.Beta;
+import smile.math.special.Erf;
 import smile.stat.hypothesis.CorTest;
 
 @CheckReturnValue
@@ -66,36 +71,38 @@ final public class Summary {
     Preconditions.checkNotNull(correlation, "correlation should not be null");
 
     int nbLabelingFunctions = lfNames.size();
-    List<double[]> matrix = new ArrayList<>(nbLabelingFunctions);
+    List<Column> matrix = new ArrayList<>(nbLabelingFunctions);
 
     // Transpose
     for (int i = 0; i < nbLabelingFunctions; i++) {
 
-      double[] vector = new double[instances.size()];
+      int[] vector = new int[instances.size()];
 
       for (int j = 0; j < instances.size(); j++) {
         vector[j] = instances.get(j).getValue().get(i);
       }
 
-      matrix.add(vector);
+      matrix.add(new Column(vector));
     }
 
-    // Compute correlation coefficient between each LF
-    Table<String, String, CorTest> correlations = HashBasedTable.create();
+    // Compute correlation coefficient between each LF. The correlation is symmetric : only the
+    // upper triangle of the matrix is computed
+    CorTest[][] matrixOfCorrelations = new CorTest[nbLabelingFunctions][nbLabelingFunctions];
 
-    for (int i = 0; i < matrix.size(); i++) {
-      for (int j = 0; j < matrix.size(); j++) {
+    IntStream.range(0, nbLabelingFunctions).parallel()
+        .forEach(i -> IntStream.range(i, nbLabelingFunctions).parallel().forEach(j -> {
 
-        double[] lf1 = matrix.get(i);
-        double[] lf2 = matrix.get(j);
+          CorTest corTest = correlation(matrix.get(i), matrix.get(j), correlation);
 
-        if (eCorrelation.KENDALL.equals(correlation)) {
-          correlations.put(lfNames.label(i), lfNames.label(j), CorTest.kendall(lf1, lf2));
-        } else if (eCorrelation.SPEARMAN.equals(correlation)) {
-          correlations.put(lfNames.label(i), lfNames.label(j), CorTest.spearman(lf1, lf2));
-        } else { // PEARSON
-          correlations.put(lfNames.label(i), lfNames.label(j), CorTest.pearson(lf1, lf2));
-        }
+          matrixOfCorrelations[i][j] = corTest;
+          matrixOfCorrelations[j][i] = corTest;
+        }));
+
+    Table<String, String, CorTest> correlations = HashBasedTable.create();
+
+    for (int i = 0; i < nbLabelingFunctions; i++) {
+      for (int j = 0; j < nbLabelingFunctions; j++) {
+        correlations.put(lfNames.label(i), lfNames.label(j), matrixOfCorrelations[i][j]);
       }
     }
     return correlations;
@@ -125,47 +132,88 @@ final public class Summary {
         "Mismatch between the number of instances and the number of gold labels : %s vs %s",
         instances.size(), goldLabels.size());
 
-    int nbLabelingFunctions = lfNames.size();
     Table<String, eStatus, List<Map.Entry<T, FeatureVector<Integer>>>> table =
         HashBasedTable.create();
 
+    // Datapoints are materialized on access
+    exploreIndices(lfNames, lfLabels, instances, goldLabels).cellSet()
+        .forEach(cell -> table.put(cell.getRowKey(), cell.getColumnKey(),
+            Lists.transform(Ints.asList(cell.getValue()), instances::get)));
+
+    return table;
+  }
+
+  /**
+   * Explore the labeling functions outputs. Contrary to
+   * {@link #explore(Dictionary, Dictionary, List, List)}, each segment is a sorted array of
+   * positions in the instances list.
+   *
+   * @param lfNames mapping of the labeling function names to integers. Each integer represents the
+   *        position of the labeling function in the lfs list.
+   * @param lfLabels mapping of the labeling function outputs, i.e. labels, to integers. Each
+   *        integer represents a machine-friendly version of a human-readable label.
+   * @param instances output of the labeling functions for each datapoint.
+   * @param goldLabels gold labels.
+   * @return a segmentation of the data according to the output produced by each labeling function.
+   */
+  public static <T> Table<String, eStatus, int[]> exploreIndices(
+      com.computablefacts.morta.Dictionary lfNames, com.computablefacts.morta.Dictionary lfLabels,
+      List<Map.Entry<T, FeatureVector<Integer>>> instances, List<Integer> goldLabels) {
+
+    Preconditions.checkNotNull(lfNames, "lfNames should not be null");
+    Preconditions.checkNotNull(lfLabels, "lfNames should not be null");
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
+
+    Preconditions.checkArgument(instances.size() == goldLabels.size(),
+        "Mismatch between the number of instances and the number of gold labels : %s vs %s",
+        instances.size(), goldLabels.size());
+
+    int nbLabelingFunctions = lfNames.size();
+    eStatus[] statuses = new eStatus[] {eStatus.CORRECT, eStatus.CORRECT_ABSTAIN,
+        eStatus.INCORRECT, eStatus.INCORRECT_ABSTAIN};
+
+    for (int j = 0; j < instances.size(); j++) {
+
+      FeatureVector<Integer> featureVector = instances.get(j).getValue();
+
+      Preconditions.checkState(nbLabelingFunctions == featureVector.size(),
+          "Invalid feature vector length : %s found vs %s expected", featureVector.size(),
+          nbLabelingFunctions);
+    }
+
+    Table<String, eStatus, int[]> table = HashBasedTable.create();
+    byte[] status = new byte[instances.size()];
+
     for (int i = 0; i < nbLabelingFunctions; i++) {
 
-      String lfName = lfNames.label(i);
+      int[] sizes = new int[statuses.length];
 
+      // First pass : status of each datapoint
       for (int j = 0; j < instances.size(); j++) {
 
-        Map.Entry<T, FeatureVector<Integer>> instance = instances.get(j);
-        int lfLabel = instance.getValue().get(i);
+        int lfLabel = instances.get(j).getValue().get(i);
+        int goldLabel = goldLabels.get(j);
+        int k = (lfLabel == goldLabel ? 0 : 2) + (lfLabel == ABSTAIN ? 1 : 0);
 
-        Preconditions.checkState(nbLabelingFunctions == instance.getValue().size(),
-            "Invalid feature vector length : %s found vs %s expected", instance.getValue().size(),
-            nbLabelingFunctions);
+        status[j] = (byte) k;
+        sizes[k]++;
+      }
 
-        if (lfLabel == goldLabels.get(j)) {
-          if (lfLabel == ABSTAIN) {
-            if (!table.contains(lfName, eStatus.CORRECT_ABSTAIN)) {
-              table.put(lfName, eStatus.CORRECT_ABSTAIN, new ArrayList<>());
-            }
-            table.get(lfName, eStatus.CORRECT_ABSTAIN).add(instance);
-          } else {
-            if (!table.contains(lfName, eStatus.CORRECT)) {
-              table.put(lfName, eStatus.CORRECT, new ArrayList<>());
-            }
-            table.get(lfName, eStatus.CORRECT).add(instance);
-          }
-        } else {
-          if (lfLabel == ABSTAIN) {
-            if (!table.contains(lfName, eStatus.INCORRECT_ABSTAIN)) {
-              table.put(lfName, eStatus.INCORRECT_ABSTAIN, new ArrayList<>());
-            }
-            table.get(lfName, eStatus.INCORRECT_ABSTAIN).add(instance);
-          } else {
-            if (!table.contains(lfName, eStatus.INCORRECT)) {
-              table.put(lfName, eStatus.INCORRECT, new ArrayList<>());
-            }
-            table.get(lfName, eStatus.INCORRECT).add(instance);
-          }
+      // Second pass : positions of the datapoints in each segment
+      int[][] segments = new int[statuses.length][];
+      int[] positions = new int[statuses.length];
+
+      for (int k = 0; k < statuses.length; k++) {
+        segments[k] = new int[sizes[k]];
+      }
+      for (int j = 0; j < instances.size(); j++) {
+        int k = status[j];
+        segments[k][positions[k]++] = j;
+      }
+      for (int k = 0; k < statuses.length; k++) {
+        if (segments[k].length > 0) {
+          table.put(lfNames.label(i), statuses[k], segments[k]);
         }
       }
     }
@@ -194,109 +242,378 @@ final public class Summary {
     Preconditions.checkNotNull(instances, "instances should not be null");
 
     int nbLabelingFunctions = lfNames.size();
-    List<Summary> summaries = new ArrayList<>(nbLabelingFunctions);
+    int nbInstances = instances.size();
+    int nbWords = (nbInstances + 63) >>> 6;
 
-    Preconditions.checkState(goldLabels == null || instances.size() == goldLabels.size(),
+    Preconditions.checkState(goldLabels == null || nbInstances == goldLabels.size(),
         "Mismatch between the number of instances and the number of gold labels : %s vs %s",
-        instances.size(), goldLabels == null ? 0 : goldLabels.size());
+        nbInstances, goldLabels == null ? 0 : goldLabels.size());
 
-    for (int i = 0; i < nbLabelingFunctions; i++) {
+    // For each label, one bitset per labeling function : bit j is set iif the labeling function
+    // output this label for the j-th instance
+    Map<Integer, long[][]> bitsets = new HashMap<>();
+    int[] nbCorrect = new int[nbLabelingFunctions];
+    int[] nbIncorrect = new int[nbLabelingFunctions];
+    int[] nbAbstain = new int[nbLabelingFunctions];
 
-      String labelingFunctionName = lfNames.label(i);
-      Set<String> labels = new HashSet<>();
-      Map<String, Set<String>> overlapsWith = new HashMap<>();
-      Map<String, Set<String>> conflictsWith = new HashMap<>();
-      @Var
-      double nbLabelled = 0;
-      @Var
-      double nbOverlaps = 0;
-      @Var
-      double nbConflicts = 0;
-      @Var
-      double nbDataPoints = 0;
-      @Var
-      int nbCorrect = goldLabels == null ? -1 : 0;
-      @Var
-      int nbIncorrect = goldLabels == null ? -1 : 0;
-      @Var
-      int nbAbstain = goldLabels == null ? -1 : 0;
+    Arrays.fill(nbCorrect, goldLabels == null ? -1 : 0);
+    Arrays.fill(nbIncorrect, goldLabels == null ? -1 : 0);
+    Arrays.fill(nbAbstain, goldLabels == null ? -1 : 0);
 
-      for (int j = 0; j < instances.size(); j++) {
+    for (int j = 0; j < nbInstances; j++) {
+
+      FeatureVector<Integer> featureVector = instances.get(j).getValue();
+
+      Preconditions.checkState(nbLabelingFunctions == featureVector.size(),
+          "Invalid feature vector length : %s found vs %s expected", featureVector.size(),
+          nbLabelingFunctions);
 
-        nbDataPoints += 1.0;
-        Map.Entry<T, FeatureVector<Integer>> featureVector = instances.get(j);
-        String lfName = lfNames.label(i);
-        int lfValue = featureVector.getValue().get(i);
+      for (int i = 0; i < nbLabelingFunctions; i++) {
 
-        Preconditions.checkState(nbLabelingFunctions == featureVector.getValue().size(),
-            "Invalid feature vector length : %s found vs %s expected",
-            featureVector.getValue().size(), nbLabelingFunctions);
-        Preconditions.checkState(labelingFunctionName.equals(lfName),
-            "Invalid labeling function name : %s found vs %s expected", lfName,
-            labelingFunctionName);
+        int lfValue = featureVector.get(i);
 
         if (lfValue > ABSTAIN) {
+
+          bitsets.computeIfAbsent(lfValue, v -> new long[nbLabelingFunctions][nbWords])[i][j
+              >>> 6] |= 1L << j;
+
           if (goldLabels != null) {
             if (lfValue == goldLabels.get(j)) {
-              nbCorrect++;
+              nbCorrect[i]++;
             } else {
-              nbIncorrect++;
+              nbIncorrect[i]++;
             }
           }
+        } else {
+          nbAbstain[i]++;
+        }
+      }
+    }
 
-          nbLabelled += 1.0;
-          labels.add(lfLabels.label(lfValue));
+    // Instances labeled by each labeling function
+    long[][] labeled = new long[nbLabelingFunctions][nbWords];
+
+    // For each label, instances where at least two labeling functions output this label
+    Map<Integer, long[]> agreements = new HashMap<>();
+
+    // Instances where at least two labeling functions output different labels
+    long[] disagreements = new long[nbWords];
+
+    long[] anyLabel = new long[nbWords];
+
+    for (Map.Entry<Integer, long[][]> entry : bitsets.entrySet()) {
+
+      long[][] bitset = entry.getValue();
+      long[] agreement = new long[nbWords];
+
+      agreements.put(entry.getKey(), agreement);
+
+      for (int w = 0; w < nbWords; w++) {
+
+        @Var
+        long atLeastOne = 0L;
+        @Var
+        long atLeastTwo = 0L;
+
+        for (int i = 0; i < nbLabelingFunctions; i++) {
+          atLeastTwo |= atLeastOne & bitset[i][w];
+          atLeastOne |= bitset[i][w];
+          labeled[i][w] |= bitset[i][w];
+        }
+
+        agreement[w] = atLeastTwo;
+        disagreements[w] |= anyLabel[w] & atLeastOne;
+        anyLabel[w] |= atLeastOne;
+      }
+    }
+
+    List<Set<String>> overlapsWith = new ArrayList<>(nbLabelingFunctions);
+    List<Set<String>> conflictsWith = new ArrayList<>(nbLabelingFunctions);
+
+    for (int i = 0; i < nbLabelingFunctions; i++) {
+      overlapsWith.add(new HashSet<>());
+      conflictsWith.add(new HashSet<>());
+    }
+
+    for (int i = 0; i < nbLabelingFunctions; i++) {
+      for (int k = i + 1; k < nbLabelingFunctions; k++) {
+
+        @Var
+        boolean hasOverlap = false;
+        @Var
+        boolean hasConflict = false;
+
+        for (int w = 0; (!hasOverlap || !hasConflict) && w < nbWords; w++) {
+
+          long both = labeled[i][w] & labeled[k][w];
+
+          if (both == 0L) {
+            continue;
+          }
 
           @Var
-          boolean hasOverlap = false;
-          @Var
-          boolean hasConflict = false;
-
-          for (int k = 0; /* (!hasOverlap || !hasConflict) && */ k < nbLabelingFunctions; k++) {
-            if (k != i) {
-
-              int lfv = featureVector.getValue().get(k);
-              String lfn = lfNames.label(k);
-
-              if (lfv > ABSTAIN && lfv == lfValue) {
-                if (!hasOverlap) {
-                  nbOverlaps += 1.0;
-                  hasOverlap = true;
-                }
-                if (!overlapsWith.containsKey(lfName)) {
-                  overlapsWith.put(lfName, new HashSet<>());
-                }
-                overlapsWith.get(lfName).add(lfn);
-              }
-              if (lfv > ABSTAIN && lfv != lfValue) {
-                if (!hasConflict) {
-                  nbConflicts += 1.0;
-                  hasConflict = true;
-                }
-                if (!conflictsWith.containsKey(lfName)) {
-                  conflictsWith.put(lfName, new HashSet<>());
-                }
-                conflictsWith.get(lfName).add(lfn);
-              }
-            }
+          long agree = 0L;
+
+          for (long[][] bitset : bitsets.values()) {
+            agree |= bitset[i][w] & bitset[k][w];
           }
-        } else {
-          nbAbstain++;
+
+          hasOverlap |= agree != 0L;
+          hasConflict |= (both & ~agree) != 0L;
+        }
+
+        if (hasOverlap) {
+          overlapsWith.get(i).add(lfNames.label(k));
+          overlapsWith.get(k).add(lfNames.label(i));
+        }
+        if (hasConflict) {
+          conflictsWith.get(i).add(lfNames.label(k));
+          conflictsWith.get(k).add(lfNames.label(i));
         }
       }
+    }
+
+    List<Summary> summaries = new ArrayList<>(nbLabelingFunctions);
+
+    for (int i = 0; i < nbLabelingFunctions; i++) {
+
+      Set<String> labels = new HashSet<>();
+      @Var
+      double nbLabelled = 0;
+      @Var
+      double nbOverlaps = 0;
+      @Var
+      double nbConflicts = 0;
+
+      for (Map.Entry<Integer, long[][]> bitset : bitsets.entrySet()) {
+        if (Arrays.stream(bitset.getValue()[i]).anyMatch(word -> word != 0L)) {
+          labels.add(lfLabels.label(bitset.getKey()));
+        }
+      }
+
+      for (int w = 0; w < nbWords; w++) {
+
+        @Var
+        long overlaps = 0L;
+
+        for (Map.Entry<Integer, long[][]> entry : bitsets.entrySet()) {
+          overlaps |= entry.getValue()[i][w] & agreements.get(entry.getKey())[w];
+        }
+
+        nbLabelled += Long.bitCount(labeled[i][w]);
+        nbOverlaps += Long.bitCount(overlaps);
+        nbConflicts += Long.bitCount(labeled[i][w] & disagreements[w]);
+      }
 
       Preconditions.checkState(
-          goldLabels == null || nbCorrect + nbIncorrect + nbAbstain == instances.size(),
+          goldLabels == null || nbCorrect[i] + nbIncorrect[i] + nbAbstain[i] == nbInstances,
           "Mismatch between the number of correct/incorrect labels and the number of instances : %s found vs %s expected",
-          nbCorrect + nbIncorrect + nbAbstain, instances.size());
+          nbCorrect[i] + nbIncorrect[i] + nbAbstain[i], nbInstances);
 
-      summaries.add(new Summary(labelingFunctionName, labels, nbLabelled / nbDataPoints,
-          nbOverlaps / nbLabelled, nbConflicts / nbLabelled, nbCorrect, nbIncorrect, nbAbstain,
-          overlapsWith.get(labelingFunctionName), conflictsWith.get(labelingFunctionName)));
+      summaries.add(new Summary(lfNames.label(i), labels, nbLabelled / (double) nbInstances,
+          nbOverlaps / nbLabelled, nbConflicts / nbLabelled, nbCorrect[i], nbIncorrect[i],
+          nbAbstain[i], overlapsWith.get(i), conflictsWith.get(i)));
     }
     return summaries;
   }
 
+  private static CorTest correlation(Column x, Column y, eCorrelation correlation) {
+
+    if (x.domain_ == null || y.domain_ == null) {
+
+      double[] lf1 = x.toDoubleArray();
+      double[] lf2 = y.toDoubleArray();
+
+      if (eCorrelation.KENDALL.equals(correlation)) {
+        return CorTest.kendall(lf1, lf2);
+      }
+      if (eCorrelation.SPEARMAN.equals(correlation)) {
+        return CorTest.spearman(lf1, lf2);
+      }
+      return CorTest.pearson(lf1, lf2); // PEARSON
+    }
+
+    // Both LF output a handful of distinct values (usually ABSTAIN, KO and OK) : all three
+    // coefficients can be derived from the contingency table of the LF outputs
+    long[][] counts = new long[x.domain_.length][y.domain_.length];
+
+    for (int k = 0; k < x.codes_.length; k++) {
+      counts[x.codes_[k]][y.codes_[k]]++;
+    }
+
+    if (eCorrelation.KENDALL.equals(correlation)) {
+      return kendall(counts, x.codes_.length);
+    }
+    if (eCorrelation.SPEARMAN.equals(correlation)) {
+      return spearman(counts, x.codes_.length);
+    }
+    return pearson(counts, x.domain_, y.domain_, x.codes_.length); // PEARSON
+  }
+
+  /**
+   * See {@link CorTest#pearson(double[], double[])}.
+   */
+  private static CorTest pearson(long[][] counts, int[] domainX, int[] domainY, int n) {
+
+    long[] rows = rows(counts);
+    long[] cols = cols(counts);
+
+    @Var
+    double ax = 0.0;
+    @Var
+    double ay = 0.0;
+
+    for (int a = 0; a < rows.length; a++) {
+      ax += rows[a] * (double) domainX[a];
+    }
+    for (int b = 0; b < cols.length; b++) {
+      ay += cols[b] * (double) domainY[b];
+    }
+
+    ax /= n;
+    ay /= n;
+
+    @Var
+    double sxx = 0.0;
+    @Var
+    double syy = 0.0;
+    @Var
+    double sxy = 0.0;
+
+    for (int a = 0; a < rows.length; a++) {
+      sxx += rows[a] * (domainX[a] - ax) * (domainX[a] - ax);
+    }
+    for (int b = 0; b < cols.length; b++) {
+      syy += cols[b] * (domainY[b] - ay) * (domainY[b] - ay);
+    }
+    for (int a = 0; a < rows.length; a++) {
+      for (int b = 0; b < cols.length; b++) {
+        sxy += counts[a][b] * (domainX[a] - ax) * (domainY[b] - ay);
+      }
+    }
+
+    double tiny = 1.0e-20;
+    double r = sxy / (Math.sqrt(sxx * syy) + tiny);
+    int df = n - 2;
+    double t = r * Math.sqrt(df / ((1.0 - r + tiny) * (1.0 + r + tiny)));
+    double pvalue = Beta.regularizedIncompleteBetaFunction(0.5 * df, 0.5, df / (df + t * t));
+
+    return new CorTest("Pearson", r, df, t, pvalue);
+  }
+
+  /**
+   * See {@link CorTest#spearman(double[], double[])}.
+   */
+  private static CorTest spearman(long[][] counts, int n) {
+
+    long[] rows = rows(counts);
+    long[] cols = cols(counts);
+    double[] ranksX = ranks(rows);
+    double[] ranksY = ranks(cols);
+
+    @Var
+    double d = 0.0;
+
+    for (int a = 0; a < rows.length; a++) {
+      for (int b = 0; b < cols.length; b++) {
+        d += counts[a][b] * (ranksX[a] - ranksY[b]) * (ranksX[a] - ranksY[b]);
+      }
+    }
+
+    double sf = Arrays.stream(rows).mapToDouble(c -> (double) c * c * c - c).sum();
+    double sg = Arrays.stream(cols).mapToDouble(c -> (double) c * c * c - c).sum();
+    double en3n = (double) n * n * n - n;
+    double df = n - 2;
+    @Var
+    double fac = (1.0 - sf / en3n) * (1.0 - sg / en3n);
+    double rs = (1.0 - (6.0 / en3n) * (d + (sf + sg) / 12.0)) / Math.sqrt(fac);
+
+    fac = (rs + 1.0) * (1.0 - rs);
+
+    @Var
+    double t = 0.0;
+    @Var
+    double pvalue = 0.0;
+
+    if (fac > 0.0) {
+      t = rs * Math.sqrt(df / fac);
+      pvalue = Beta.regularizedIncompleteBetaFunction(0.5 * df, 0.5, df / (df + t * t));
+    }
+    return new CorTest("Spearman", rs, df, t, pvalue);
+  }
+
+  /**
+   * See {@link CorTest#kendall(double[], double[])}.
+   */
+  private static CorTest kendall(long[][] counts, int n) {
+
+    long[] rows = rows(counts);
+    long[] cols = cols(counts);
+
+    // Concordant minus discordant pairs
+    @Var
+    double is = 0.0;
+
+    for (int a1 = 0; a1 < rows.length; a1++) {
+      for (int b1 = 0; b1 < cols.length; b1++) {
+        for (int a2 = a1 + 1; a2 < rows.length; a2++) {
+          for (int b2 = 0; b2 < cols.length; b2++) {
+            if (b1 < b2) {
+              is += (double) counts[a1][b1] * counts[a2][b2];
+            } else if (b1 > b2) {
+              is -= (double) counts[a1][b1] * counts[a2][b2];
+            }
+          }
+        }
+      }
+    }
+
+    // Pairs that are not tied on x (resp. y)
+    double pairs = (double) n * (n - 1) / 2.0;
+    double n1 = pairs - Arrays.stream(rows).mapToDouble(c -> (double) c * (c - 1) / 2.0).sum();
+    double n2 = pairs - Arrays.stream(cols).mapToDouble(c -> (double) c * (c - 1) / 2.0).sum();
+
+    double tau = is / (Math.sqrt(n1) * Math.sqrt(n2));
+    double svar = (4.0 * n + 10.0) / (9.0 * n * (n - 1.0));
+    double z = tau / Math.sqrt(svar);
+    double pvalue = Erf.erfcc(Math.abs(z) / 1.4142136);
+
+    return new CorTest("Kendall", tau, 0, z, pvalue);
+  }
+
+  private static long[] rows(long[][] counts) {
+    return Arrays.stream(counts).mapToLong(row -> Arrays.stream(row).sum()).toArray();
+  }
+
+  private static long[] cols(long[][] counts) {
+
+    long[] cols = new long[counts.length == 0 ? 0 : counts[0].length];
+
+    for (long[] row : counts) {
+      for (int b = 0; b < row.length; b++) {
+        cols[b] += row[b];
+      }
+    }
+    return cols;
+  }
+
+  /**
+   * Compute the (1-based) mid-rank of each value given the number of occurrences of each value in
+   * increasing order.
+   */
+  private static double[] ranks(long[] counts) {
+
+    double[] ranks = new double[counts.length];
+    @Var
+    long before = 0;
+
+    for (int a = 0; a < counts.length; a++) {
+      ranks[a] = before + (counts[a] + 1) / 2.0;
+      before += counts[a];
+    }
+    return ranks;
+  }
+
   @Generated
   @Override
   public String toString() {
@@ -435,6 +752,39 @@ final public class Summary {
 
   // TODO : compute empirical accuracy
 
+  /**
+   * The output of a single LF for each datapoint. When the LF outputs only a few distinct values,
+   * each value is replaced by its position in the sorted list of distinct values.
+   */
+  private final static class Column {
+
+    // Above this threshold, the correlation is delegated to Smile
+    private static final int MAX_DOMAIN_SIZE = 8;
+
+    private final int[] values_;
+    private final int[] domain_;
+    private final int[] codes_;
+
+    Column(int[] values) {
+
+      values_ = values;
+
+      int[] domain = Arrays.stream(values).distinct().limit(MAX_DOMAIN_SIZE + 1).sorted().toArray();
+
+      if (domain.length > MAX_DOMAIN_SIZE) {
+        domain_ = null;
+        codes_ = null;
+      } else {
+        domain_ = domain;
+        codes_ = Arrays.stream(values).map(value -> Arrays.binarySearch(domain, value)).toArray();
+      }
+    }
+
+    double[] toDoubleArray() {
+      return Arrays.stream(values_).asDoubleStream().toArray();
+    }
+  }
+
   /**
    * Note that Spearman is computed on ranks and so depicts monotonic relationships while Pearson is
    * on true values and depicts linear relationships. If Spearman > Pearson the correlation is
@@ -1,19 +1,29 @@
 package com.computablefacts.morta.classifiers;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import com.computablefacts.asterix.View;
 import com.computablefacts.morta.FeatureVector;
 import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
 import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
 
 import smile.classification.Classifier;
 
 @CheckReturnValue
 public abstract class AbstractClassifier {
 
+  /**
+   * The number of data points scored at once by {@link #predict(double[][])}. Batches are scored in
+   * parallel.
+   */
+  public static final int BATCH_SIZE = 100;
+
   private Classifier<double[]> classifier_;
   private double mcc_;
   private double f1_;
@@ -62,7 +72,33 @@ public abstract class AbstractClassifier {
     Preconditions.checkState(classifier_ != null,
         "classifier should be trained before calling predict(...)");
 
-    return View.of(instances).map(this::predict).toList();
+    return Arrays.stream(predict(matrix(instances))).boxed().collect(Collectors.toList());
+  }
+
+  /**
+   * Predict output using a previously trained classifier.
+   *
+   * @param instances instances[n][d] with n the number of data points and d the number of features.
+   * @return a prediction for each data point.
+   */
+  public int[] predict(double[][] instances) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkState(classifier_ != null,
+        "classifier should be trained before calling predict(...)");
+
+    int[] predictions = new int[instances.length];
+    int nbBatches = (instances.length + BATCH_SIZE - 1) / BATCH_SIZE;
+
+    IntStream.range(0, nbBatches).parallel().forEach(batch -> {
+
+      int from = batch * BATCH_SIZE;
+      int to = Math.min(instances.length, from + BATCH_SIZE);
+      int[] batchPredictions = classifier_.predict(Arrays.copyOfRange(instances, from, to));
+
+      System.arraycopy(batchPredictions, 0, predictions, from, batchPredictions.length);
+    });
+    return predictions;
   }
 
   /**
@@ -90,30 +126,143 @@ public abstract class AbstractClassifier {
 
     Preconditions.checkNotNull(instances, "instances should not be null");
     Preconditions.checkNotNull(labels, "labels should not be null");
-    Preconditions.checkArgument(instances.size() == labels.size(),
-        "Invalid number of labels : %s found vs %s expected", labels.size(), instances.size());
+
+    train(matrix(instances), Ints.toArray(labels));
+  }
+
+  /**
+   * Train a classifier. The matrix is handed over to the underlying learner as-is i.e. without
+   * being copied.
+   *
+   * @param instances instances[n][d] with n the number of data points and d the number of features.
+   * @param labels the output label of each data point.
+   */
+  public void train(double[][] instances, int[] labels) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkNotNull(labels, "labels should not be null");
+    Preconditions.checkArgument(instances.length == labels.length,
+        "Invalid number of labels : %s found vs %s expected", labels.length, instances.length);
 
     Set<Integer> classes = new HashSet<>();
-    int[] lbls = new int[labels.size()];
 
-    for (int i = 0; i < labels.size(); i++) {
-      lbls[i] = labels.get(i);
-      classes.add(labels.get(i));
+    for (int label : labels) {
+      classes.add(label);
     }
 
     Preconditions.checkState(classes.size() > 1, "The number of distinct labels must be > 1");
 
-    double[][] insts = new double[instances.size()][instances.get(0).size()];
+    classifier_ = train(classes, instances, labels);
+  }
+
+  /**
+   * Train a classifier using soft targets. Each data point is labeled with its most probable label
+   * and weighted by the probability of this label.
+   *
+   * @param instances a list of feature vectors. There is one feature vector for each data point.
+   * @param probabilities probabilities[n][k] with n the number of data points and k the number of
+   *        distinct labels.
+   */
+  public void train(List<FeatureVector<Double>> instances, double[][] probabilities) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+
+    train(matrix(instances), probabilities);
+  }
 
-    for (int i = 0; i < instances.size(); i++) {
-      for (int j = 0; j < instances.get(i).size(); j++) {
-        insts[i][j] = instances.get(i).get(j);
+  /**
+   * Train a classifier using soft targets. The matrix is handed over to the underlying learner
+   * as-is i.e. without being copied.
+   *
+   * @param instances instances[n][d] with n the number of data points and d the number of features.
+   * @param probabilities probabilities[n][k] with n the number of data points and k the number of
+   *        distinct labels.
+   */
+  public void train(double[][] instances, double[][] probabilities) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkNotNull(probabilities, "probabilities should not be null");
+    Preconditions.checkArgument(instances.length == probabilities.length,
+        "Invalid number of labels : %s found vs %s expected", probabilities.length,
+        instances.length);
+
+    Set<Integer> classes = new HashSet<>();
+    int[] lbls = new int[probabilities.length];
+    double[] weights = new double[probabilities.length];
+
+    for (int i = 0; i < probabilities.length; i++) {
+
+      @Var
+      int label = 0;
+
+      for (int k = 1; k < probabilities[i].length; k++) {
+        if (probabilities[i][k] > probabilities[i][label]) {
+          label = k;
+        }
       }
+
+      lbls[i] = label;
+      weights[i] = probabilities[i][label];
+      classes.add(label);
     }
 
-    classifier_ = train(classes, insts, lbls);
+    Preconditions.checkState(classes.size() > 1, "The number of distinct labels must be > 1");
+
+    classifier_ = train(classes, instances, lbls, weights,
+        probabilities.length == 0 ? 0 : probabilities[0].length);
   }
 
   protected abstract Classifier<double[]> train(Set<Integer> classes, double[][] instances,
       int[] labels);
+
+  /**
+   * Set the trained classifier. Useful for classifiers that are not trained through one of the
+   * {@code train(...)} methods e.g. online learners.
+   *
+   * @param classifier the trained classifier.
+   */
+  protected void classifier(Classifier<double[]> classifier) {
+
+    Preconditions.checkNotNull(classifier, "classifier should not be null");
+
+    classifier_ = classifier;
+  }
+
+  Classifier<double[]> classifier() {
+    return classifier_;
+  }
+
+  /**
+   * Train a classifier using weighted data points. Smile learners do not support sample weights :
+   * by default, the data points whose label is not more probable than a uniform guess are ignored.
+   *
+   * @param classes the distinct labels.
+   * @param instances the feature vectors.
+   * @param labels the label of each feature vector.
+   * @param weights the weight, in [0, 1], of each feature vector.
+   * @param cardinality the number of distinct labels.
+   * @return a classifier.
+   */
+  protected Classifier<double[]> train(Set<Integer> classes, double[][] instances, int[] labels,
+      double[] weights, int cardinality) {
+
+    int[] confident = IntStream.range(0, weights.length)
+        .filter(i -> weights[i] > 1.0 / cardinality).toArray();
+
+    if (confident.length == weights.length) {
+      return train(classes, instances, labels);
+    }
+
+    Set<Integer> newClasses = Arrays.stream(confident).map(i -> labels[i]).boxed()
+        .collect(Collectors.toSet());
+
+    Preconditions.checkState(newClasses.size() > 1, "The number of distinct labels must be > 1");
+
+    return train(newClasses, Arrays.stream(confident).mapToObj(i -> instances[i])
+        .toArray(double[][]::new), Arrays.stream(confident).map(i -> labels[i]).toArray());
+  }
+
+  private static double[][] matrix(List<FeatureVector<Double>> instances) {
+    return instances.stream().map(FeatureVector::toDoubleArray).toArray(double[][]::new);
+  }
 }
@@ -0,0 +1,276 @@
+package com.computablefacts.morta.classifiers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+import smile.classification.Classifier;
+
+/**
+ * Train a K-Nearest Neighbor classifier over binary feature vectors using the Jaccard similarity
+ * and an approximate index : MinHash signatures split into bands i.e. Locality-Sensitive Hashing.
+ *
+ * Contrary to {@link KNearestNeighborClassifier}, a prediction does not scan all the training data
+ * points. Only the data points sharing at least one band with the data point to classify are
+ * compared. Two data points whose Jaccard similarity is {@code s} become candidates with
+ * probability {@code 1 - (1 - s^r)^b} with {@code b} the number of bands and {@code r} the number
+ * of rows per band. Thus, increasing {@code b} or decreasing {@code r} increases recall at the
+ * expense of latency.
+ */
+@CheckReturnValue
+final public class ApproximateNearestNeighborClassifier extends AbstractClassifier {
+
+  private final int k_;
+  private final int nbBands_;
+  private final int nbRowsPerBand_;
+  private Model model_;
+
+  public ApproximateNearestNeighborClassifier() {
+    this(1, 32, 2);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param k the number of neighbors.
+   * @param nbBands the number of bands.
+   * @param nbRowsPerBand the number of MinHash values in each band.
+   */
+  public ApproximateNearestNeighborClassifier(int k, int nbBands, int nbRowsPerBand) {
+
+    Preconditions.checkArgument(k > 0, "k must be > 0");
+    Preconditions.checkArgument(nbBands > 0, "nbBands must be > 0");
+    Preconditions.checkArgument(nbRowsPerBand > 0, "nbRowsPerBand must be > 0");
+
+    k_ = k;
+    nbBands_ = nbBands;
+    nbRowsPerBand_ = nbRowsPerBand;
+  }
+
+  /**
+   * Predict output using a previously trained classifier.
+   *
+   * @param features the ids of the active features.
+   * @return a prediction.
+   */
+  public int predict(int[] features) {
+
+    Preconditions.checkNotNull(features, "features should not be null");
+    Preconditions.checkState(model_ != null,
+        "classifier should be trained before calling predict(...)");
+
+    int[] sortedFeatures = features.clone();
+    Arrays.sort(sortedFeatures);
+
+    return model_.predict(sortedFeatures);
+  }
+
+  @Override
+  protected Classifier<double[]> train(Set<Integer> classes, double[][] instances, int[] labels) {
+
+    int[][] features = Arrays.stream(instances)
+        .map(instance -> IntStream.range(0, instance.length).filter(j -> instance[j] != 0.0)
+            .toArray())
+        .toArray(int[][]::new);
+
+    model_ = new Model(k_, nbBands_, nbRowsPerBand_, features, labels);
+    return model_;
+  }
+
+  private static final class Model implements Classifier<double[]> {
+
+    // Largest prime < 2^31 : h(x) = (a * x + b) mod p
+    private static final long PRIME = 2147483647L;
+
+    private final int k_;
+    private final int nbBands_;
+    private final int nbRowsPerBand_;
+    private final long[] a_;
+    private final long[] b_;
+    private final int[][] features_;
+    private final int[] labels_;
+    private final int defaultLabel_;
+    private final List<Map<Integer, int[]>> bands_;
+
+    Model(int k, int nbBands, int nbRowsPerBand, int[][] features, int[] labels) {
+
+      k_ = k;
+      nbBands_ = nbBands;
+      nbRowsPerBand_ = nbRowsPerBand;
+      features_ = features;
+      labels_ = labels;
+
+      // Use a fixed seed to get reproducible models
+      Random random = new Random(42);
+      int nbHashes = nbBands * nbRowsPerBand;
+
+      a_ = new long[nbHashes];
+      b_ = new long[nbHashes];
+
+      for (int i = 0; i < nbHashes; i++) {
+        a_[i] = 1 + random.nextInt((int) (PRIME - 1));
+        b_[i] = random.nextInt((int) PRIME);
+      }
+
+      // When no candidate is found, fallback to the most frequent label
+      Map<Integer, Integer> counts = new HashMap<>();
+
+      for (int label : labels) {
+        counts.merge(label, 1, Integer::sum);
+      }
+
+      defaultLabel_ =
+          counts.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey)
+              .orElse(0);
+
+      List<Map<Integer, List<Integer>>> bands = new ArrayList<>(nbBands);
+
+      for (int band = 0; band < nbBands; band++) {
+        bands.add(new HashMap<>());
+      }
+
+      for (int i = 0; i < features.length; i++) {
+
+        int[] signature = signature(features[i]);
+
+        for (int band = 0; band < nbBands; band++) {
+          bands.get(band).computeIfAbsent(key(signature, band), key -> new ArrayList<>()).add(i);
+        }
+      }
+
+      bands_ = new ArrayList<>(nbBands);
+
+      for (Map<Integer, List<Integer>> band : bands) {
+
+        Map<Integer, int[]> buckets = new HashMap<>();
+        band.forEach(
+            (key, bucket) -> buckets.put(key, bucket.stream().mapToInt(i -> i).toArray()));
+        bands_.add(buckets);
+      }
+    }
+
+    @Override
+    public int predict(double[] x) {
+      return predict(IntStream.range(0, x.length).filter(j -> x[j] != 0.0).toArray());
+    }
+
+    /**
+     * Predict output.
+     *
+     * @param features the sorted ids of the active features.
+     * @return a prediction.
+     */
+    int predict(int[] features) {
+
+      int[] signature = signature(features);
+      Set<Integer> candidates = new HashSet<>();
+
+      for (int band = 0; band < nbBands_; band++) {
+
+        int[] bucket = bands_.get(band).get(key(signature, band));
+
+        if (bucket != null) {
+          for (int candidate : bucket) {
+            candidates.add(candidate);
+          }
+        }
+      }
+
+      if (candidates.isEmpty()) {
+        return defaultLabel_;
+      }
+
+      // Rank the candidates by decreasing Jaccard similarity and keep the k nearest ones
+      Map<Integer, Double> similarities = new HashMap<>();
+
+      for (int candidate : candidates) {
+        similarities.put(candidate, jaccard(features, features_[candidate]));
+      }
+
+      int[] neighbors = similarities.entrySet().stream()
+          .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+              .thenComparing(Map.Entry.comparingByKey()))
+          .limit(k_).mapToInt(Map.Entry::getKey).toArray();
+
+      Map<Integer, Integer> votes = new HashMap<>();
+
+      for (int neighbor : neighbors) {
+        votes.merge(labels_[neighbor], 1, Integer::sum);
+      }
+
+      // On ties, the label of the nearest neighbor wins
+      @Var
+      int label = labels_[neighbors[0]];
+
+      for (Map.Entry<Integer, Integer> vote : votes.entrySet()) {
+        if (vote.getValue() > votes.get(label)) {
+          label = vote.getKey();
+        }
+      }
+      return label;
+    }
+
+    private int[] signature(int[] features) {
+
+      int[] signature = new int[a_.length];
+      Arrays.fill(signature, Integer.MAX_VALUE);
+
+      for (int feature : features) {
+        for (int i = 0; i < a_.length; i++) {
+
+          int hash = (int) ((a_[i] * feature + b_[i]) % PRIME);
+
+          if (hash < signature[i]) {
+            signature[i] = hash;
+          }
+        }
+      }
+      return signature;
+    }
+
+    private int key(int[] signature, int band) {
+      return Arrays.hashCode(
+          Arrays.copyOfRange(signature, band * nbRowsPerBand_, (band + 1) * nbRowsPerBand_));
+    }
+
+    /**
+     * Compute the Jaccard similarity of two sorted sets of feature ids.
+     */
+    private static double jaccard(int[] features1, int[] features2) {
+
+      if (features1.length == 0 && features2.length == 0) {
+        return 1.0;
+      }
+
+      @Var
+      int i = 0;
+      @Var
+      int j = 0;
+      @Var
+      int intersection = 0;
+
+      while (i < features1.length && j < features2.length) {
+        if (features1[i] == features2[j]) {
+          intersection++;
+          i++;
+          j++;
+        } else if (features1[i] < features2[j]) {
+          i++;
+        } else {
+          j++;
+        }
+      }
+      return (double) intersection / (features1.length + features2.length - intersection);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package com.computablefacts.morta.classifiers;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+import smile.classification.Classifier;
+import smile.classification.LogisticRegression;
+import smile.classification.SoftClassifier;
+
+/**
+ * A compact, read-only, scorer exported from a trained binary linear classifier i.e. a classifier
+ * whose log-odds {@code log(P(OK|x) / P(KO|x))} are equal to {@code w.x + b}.
+ *
+ * The weights are stored either as 32-bit floats or as 8-bit integers sharing a single scale
+ * factor. Scoring a data point is a sparse dot product over the ids of its active features i.e.
+ * the features set to 1 in its binary count vector.
+ *
+ * Supported classifiers are {@link LogisticRegressionClassifier},
+ * {@link LinearDiscriminantAnalysisClassifier} and {@link OnlineLogisticRegressionClassifier}.
+ */
+@CheckReturnValue
+final public class LinearScorer {
+
+  // Posteriors are clamped in order to keep the log-odds finite
+  private static final double MIN_PROBABILITY = 1e-12;
+
+  private final int nbFeatures_;
+  private final float bias_;
+  private final float scale_;
+  private final float[] weights_; // null iif the weights are quantized
+  private final byte[] quantizedWeights_; // null iif the weights are not quantized
+
+  private LinearScorer(double[] weights, double bias, ePrecision precision) {
+
+    nbFeatures_ = weights.length;
+    bias_ = (float) bias;
+
+    if (ePrecision.FLOAT32.equals(precision)) {
+
+      scale_ = 1.0f;
+      weights_ = new float[weights.length];
+      quantizedWeights_ = null;
+
+      for (int j = 0; j < weights.length; j++) {
+        weights_[j] = (float) weights[j];
+      }
+    } else {
+
+      double max = Arrays.stream(weights).map(Math::abs).max().orElse(0.0);
+
+      scale_ = max == 0.0 ? 1.0f : (float) (max / Byte.MAX_VALUE);
+      weights_ = null;
+      quantizedWeights_ = new byte[weights.length];
+
+      for (int j = 0; j < weights.length; j++) {
+        quantizedWeights_[j] = (byte) Math.round(weights[j] / scale_);
+      }
+    }
+  }
+
+  /**
+   * Export a trained classifier. The exported scorer is checked against the classifier on a set of
+   * data points : the probability that a data point is OK must not differ by more than a given
+   * tolerance.
+   *
+   * @param classifier the trained classifier.
+   * @param nbFeatures the number of features.
+   * @param precision the precision of the exported weights.
+   * @param instances the data points used to check the exported scorer.
+   * @param tolerance the maximum absolute difference allowed between the probabilities computed by
+   *        the classifier and by the exported scorer.
+   * @return a scorer.
+   */
+  public static LinearScorer of(AbstractClassifier classifier, int nbFeatures,
+      ePrecision precision, double[][] instances, double tolerance) {
+
+    Preconditions.checkNotNull(classifier, "classifier should not be null");
+    Preconditions.checkArgument(nbFeatures > 0, "nbFeatures must be > 0");
+    Preconditions.checkNotNull(precision, "precision should not be null");
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkArgument(tolerance >= 0, "tolerance must be >= 0");
+
+    double[] weights;
+    double bias;
+    ToDoubleFunction<double[]> reference;
+
+    if (classifier instanceof OnlineLogisticRegressionClassifier) {
+
+      OnlineLogisticRegressionClassifier logit = (OnlineLogisticRegressionClassifier) classifier;
+
+      Preconditions.checkArgument(logit.nbFeatures() == nbFeatures,
+          "Invalid number of features : %s found vs %s expected", logit.nbFeatures(), nbFeatures);
+
+      weights = logit.weights();
+      bias = logit.bias();
+      reference = x -> sigmoid(logit.bias() + dot(weights, x));
+    } else if (classifier instanceof LogisticRegressionClassifier
+        || classifier instanceof LinearDiscriminantAnalysisClassifier) {
+
+      Classifier<double[]> model = classifier.classifier();
+
+      Preconditions.checkState(model != null, "classifier should be trained first");
+      Preconditions.checkArgument(model instanceof SoftClassifier,
+          "the classifier does not output posterior probabilities");
+
+      SoftClassifier<double[]> softModel = (SoftClassifier<double[]>) model;
+      reference = x -> probability(softModel, x);
+
+      if (model instanceof LogisticRegression.Binomial) {
+
+        // The last coefficient is the intercept
+        double[] coefficients = ((LogisticRegression.Binomial) model).coefficients();
+
+        Preconditions.checkArgument(coefficients.length == nbFeatures + 1,
+            "Invalid number of features : %s found vs %s expected", coefficients.length - 1,
+            nbFeatures);
+
+        weights = Arrays.copyOf(coefficients, nbFeatures);
+        bias = coefficients[nbFeatures];
+      } else {
+
+        // The log-odds are linear : probe them at the origin and along each axis. Note that it
+        // costs nbFeatures + 1 calls to predict(...) i.e. it is expensive on a real alphabet
+        double[] x = new double[nbFeatures];
+
+        weights = new double[nbFeatures];
+        bias = logOdds(softModel, x);
+
+        for (int j = 0; j < nbFeatures; j++) {
+          x[j] = 1.0;
+          weights[j] = logOdds(softModel, x) - bias;
+          x[j] = 0.0;
+        }
+      }
+    } else {
+      throw new IllegalArgumentException(
+          "unsupported classifier : " + classifier.getClass().getSimpleName());
+    }
+
+    LinearScorer scorer = new LinearScorer(weights, bias, precision);
+
+    for (double[] instance : instances) {
+
+      Preconditions.checkArgument(instance.length == nbFeatures,
+          "Invalid feature vector length : %s found vs %s expected", instance.length, nbFeatures);
+
+      double expected = reference.applyAsDouble(instance);
+      double actual = sigmoid(scorer.score(instance));
+
+      Preconditions.checkState(Math.abs(expected - actual) <= tolerance,
+          "the exported scorer deviates from the classifier : %s found vs %s expected", actual,
+          expected);
+    }
+    return scorer;
+  }
+
+  private static double probability(SoftClassifier<double[]> classifier, double[] x) {
+
+    double[] posteriori = new double[2];
+    classifier.predict(x, posteriori);
+
+    return posteriori[OK];
+  }
+
+  private static double logOdds(SoftClassifier<double[]> classifier, double[] x) {
+
+    double probability = probability(classifier, x);
+    double probabilityOk = Math.max(MIN_PROBABILITY, probability);
+    double probabilityKo = Math.max(MIN_PROBABILITY, 1.0 - probability);
+
+    return Math.log(probabilityOk / probabilityKo);
+  }
+
+  private static double dot(double[] weights, double[] x) {
+
+    @Var
+    double dot = 0.0;
+
+    for (int j = 0; j < x.length; j++) {
+      if (x[j] != 0.0) {
+        dot += weights[j] * x[j];
+      }
+    }
+    return dot;
+  }
+
+  private static double sigmoid(double x) {
+    return 1.0 / (1.0 + Math.exp(-x));
+  }
+
+  /**
+   * Compute the log-odds that a data point is OK.
+   *
+   * @param features the ids of the active features.
+   * @return the log-odds.
+   */
+  public double score(int[] features) {
+
+    Preconditions.checkNotNull(features, "features should not be null");
+
+    if (weights_ != null) {
+
+      @Var
+      float score = bias_;
+
+      for (int feature : features) {
+        score += weights_[feature];
+      }
+      return score;
+    }
+
+    @Var
+    int score = 0;
+
+    for (int feature : features) {
+      score += quantizedWeights_[feature];
+    }
+    return bias_ + scale_ * score;
+  }
+
+  /**
+   * Compute the log-odds that a data point is OK.
+   *
+   * @param vector a dense feature vector.
+   * @return the log-odds.
+   */
+  public double score(double[] vector) {
+
+    Preconditions.checkNotNull(vector, "vector should not be null");
+    Preconditions.checkArgument(vector.length == nbFeatures_,
+        "Invalid feature vector length : %s found vs %s expected", vector.length, nbFeatures_);
+
+    @Var
+    double score = 0.0;
+
+    for (int j = 0; j < vector.length; j++) {
+      if (vector[j] != 0.0) {
+        score += (weights_ != null ? weights_[j] : scale_ * quantizedWeights_[j]) * vector[j];
+      }
+    }
+    return bias_ + score;
+  }
+
+  /**
+   * Compute the probability that a data point is OK.
+   *
+   * @param features the ids of the active features.
+   * @return a probability.
+   */
+  public double probability(int[] features) {
+    return sigmoid(score(features));
+  }
+
+  /**
+   * Predict output.
+   *
+   * @param features the ids of the active features.
+   * @return a label in {OK, KO}.
+   */
+  public int predict(int[] features) {
+    return score(features) > 0.0 ? OK : KO;
+  }
+
+  public int nbFeatures() {
+    return nbFeatures_;
+  }
+
+  public ePrecision precision() {
+    return weights_ != null ? ePrecision.FLOAT32 : ePrecision.INT8;
+  }
+
+  public enum ePrecision {
+    FLOAT32, INT8
+  }
+}
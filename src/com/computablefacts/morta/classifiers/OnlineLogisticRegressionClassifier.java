@@ -0,0 +1,398 @@
+package com.computablefacts.morta.classifiers;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.computablefacts.asterix.View;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterators;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+import smile.classification.Classifier;
+
+/**
+ * Train a binary logistic regression model using mini-batch stochastic gradient descent with
+ * per-feature AdaGrad learning rates.
+ *
+ * Contrary to {@link LogisticRegressionClassifier}, the dataset does not have to fit in memory as
+ * a dense matrix. The model can be trained on a stream of sparse binary feature vectors i.e. on the
+ * ids of the active features of each data point. Feature ids can be obtained by hashing feature
+ * names using {@link #hash(Collection, int)}. A stream can be spilled to disk using
+ * {@link #spill(Iterator, File)} and replayed for several epochs using {@link #fit(File)}. Once
+ * trained, the model can be updated as new data points arrive using {@link #partialFit(Iterator)}.
+ */
+@CheckReturnValue
+final public class OnlineLogisticRegressionClassifier extends AbstractClassifier {
+
+  private static final HashFunction HASH = Hashing.murmur3_32();
+  private static final double EPSILON = 1e-8;
+
+  private final int nbFeatures_;
+  private final int nbEpochs_;
+  private final int batchSize_;
+  private final double learningRate_;
+  private final double lambda_;
+  private Model model_;
+
+  public OnlineLogisticRegressionClassifier(int nbFeatures) {
+    this(nbFeatures, 10, 32, 0.1, 0.0001);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nbFeatures the number of features i.e. the size of the weight vector.
+   * @param nbEpochs the number of passes over the training data.
+   * @param batchSize the number of data points used to compute each gradient step.
+   * @param learningRate the AdaGrad base learning rate.
+   * @param lambda the L2 regularization factor.
+   */
+  public OnlineLogisticRegressionClassifier(int nbFeatures, int nbEpochs, int batchSize,
+      double learningRate, double lambda) {
+
+    Preconditions.checkArgument(nbFeatures > 0, "nbFeatures must be > 0");
+    Preconditions.checkArgument(nbEpochs > 0, "nbEpochs must be > 0");
+    Preconditions.checkArgument(batchSize > 0, "batchSize must be > 0");
+    Preconditions.checkArgument(learningRate > 0, "learningRate must be > 0");
+    Preconditions.checkArgument(lambda >= 0, "lambda must be >= 0");
+
+    nbFeatures_ = nbFeatures;
+    nbEpochs_ = nbEpochs;
+    batchSize_ = batchSize;
+    learningRate_ = learningRate;
+    lambda_ = lambda;
+  }
+
+  /**
+   * Map a set of feature names to a sparse binary feature vector using the hashing trick.
+   *
+   * @param features the feature names.
+   * @param nbFeatures the number of features i.e. the size of the weight vector.
+   * @return the sorted ids of the active features.
+   */
+  public static int[] hash(Collection<String> features, int nbFeatures) {
+
+    Preconditions.checkNotNull(features, "features should not be null");
+    Preconditions.checkArgument(nbFeatures > 0, "nbFeatures must be > 0");
+
+    return features.stream()
+        .mapToInt(
+            feature -> Math.floorMod(HASH.hashString(feature, StandardCharsets.UTF_8).asInt(),
+                nbFeatures))
+        .distinct().sorted().toArray();
+  }
+
+  /**
+   * Write a stream of sparse binary feature vectors to a gzipped file, one data point per line.
+   *
+   * @param instances pairs of (active feature ids, label).
+   * @param file the file to write.
+   */
+  public static void spill(Iterator<Map.Entry<int[], Integer>> instances, File file) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkNotNull(file, "file should not be null");
+    Preconditions.checkArgument(!file.exists(), "file already exists : %s", file);
+
+    View.of(instances)
+        .toFile(instance -> instance.getValue() + "\t" + Arrays.stream(instance.getKey())
+            .mapToObj(Integer::toString).collect(Collectors.joining(",")), file, false, true);
+  }
+
+  /**
+   * Train the model from scratch on a file written by {@link #spill(Iterator, File)}. The file is
+   * streamed once per epoch.
+   *
+   * @param file the file to read.
+   */
+  public void fit(File file) {
+
+    Preconditions.checkNotNull(file, "file should not be null");
+    Preconditions.checkArgument(file.exists(), "file does not exist : %s", file);
+
+    Model model = new Model(nbFeatures_);
+
+    for (int epoch = 0; epoch < nbEpochs_; epoch++) {
+      try (View<String> lines = View.of(file, true)) {
+        fit(model, lines.map(OnlineLogisticRegressionClassifier::unspill).map(this::instance));
+      }
+    }
+
+    model_ = model;
+    classifier(model);
+  }
+
+  /**
+   * Update the model with new data points. Each data point is seen once. If the model has not been
+   * trained yet, a new model is created.
+   *
+   * @param instances pairs of (active feature ids, label).
+   */
+  public void partialFit(Iterator<Map.Entry<int[], Integer>> instances) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+
+    if (model_ == null) {
+      model_ = new Model(nbFeatures_);
+    }
+
+    fit(model_, Iterators.transform(instances, this::instance));
+    classifier(model_);
+  }
+
+  /**
+   * Compute the probability that a data point is OK.
+   *
+   * @param features the ids of the active features.
+   * @return a probability.
+   */
+  public double probability(int[] features) {
+
+    Preconditions.checkNotNull(features, "features should not be null");
+    Preconditions.checkState(model_ != null,
+        "classifier should be trained before calling probability(...)");
+
+    checkFeatures(features);
+
+    return model_.probability(features, null);
+  }
+
+  /**
+   * Predict output using a previously trained classifier.
+   *
+   * @param features the ids of the active features.
+   * @return a prediction.
+   */
+  public int predict(int[] features) {
+    return probability(features) > 0.5 ? OK : KO;
+  }
+
+  @Override
+  protected Classifier<double[]> train(Set<Integer> classes, double[][] instances, int[] labels) {
+
+    double[] weights = new double[labels.length];
+    Arrays.fill(weights, 1.0);
+
+    return train(classes, instances, labels, weights, classes.size());
+  }
+
+  /**
+   * Contrary to Smile learners, SGD supports sample weights : each data point contributes to the
+   * gradient in proportion to its weight.
+   */
+  @Override
+  protected Classifier<double[]> train(Set<Integer> classes, double[][] instances, int[] labels,
+      double[] weights, int cardinality) {
+
+    Preconditions.checkArgument(classes.stream().allMatch(label -> label == OK || label == KO),
+        "labels must be in {OK, KO}");
+
+    List<Instance> insts = new ArrayList<>(instances.length);
+
+    for (int i = 0; i < instances.length; i++) {
+
+      Preconditions.checkArgument(instances[i].length == nbFeatures_,
+          "Invalid feature vector length : %s found vs %s expected", instances[i].length,
+          nbFeatures_);
+
+      double[] instance = instances[i];
+      int[] indices = IntStream.range(0, instance.length)
+          .filter(j -> instance[j] != 0.0).toArray();
+      double[] values = Arrays.stream(indices).mapToDouble(j -> instance[j]).toArray();
+
+      insts.add(new Instance(indices, values, labels[i], weights[i]));
+    }
+
+    // Shuffle the data points before each epoch using a fixed seed to get reproducible models
+    Random random = new Random(42);
+    Model model = new Model(nbFeatures_);
+
+    for (int epoch = 0; epoch < nbEpochs_; epoch++) {
+      Collections.shuffle(insts, random);
+      fit(model, insts.iterator());
+    }
+
+    model_ = model;
+    return model;
+  }
+
+  public int nbFeatures() {
+    return nbFeatures_;
+  }
+
+  double[] weights() {
+
+    Preconditions.checkState(model_ != null, "classifier should be trained first");
+
+    return model_.weights_.clone();
+  }
+
+  double bias() {
+
+    Preconditions.checkState(model_ != null, "classifier should be trained first");
+
+    return model_.bias_;
+  }
+
+  /**
+   * Feature ids must be in [0, nbFeatures[. An id out of this range usually means that the data
+   * points have been hashed (or spilled) using another number of features.
+   */
+  private void checkFeatures(int[] features) {
+    for (int feature : features) {
+      Preconditions.checkArgument(feature >= 0 && feature < nbFeatures_,
+          "Invalid feature id : %s found vs [0, %s[ expected (were the data points hashed with "
+              + "another number of features?)",
+          feature, nbFeatures_);
+    }
+  }
+
+  private Instance instance(Map.Entry<int[], Integer> instance) {
+
+    Preconditions.checkNotNull(instance.getKey(), "features should not be null");
+
+    checkFeatures(instance.getKey());
+
+    return new Instance(instance.getKey(), null, instance.getValue(), 1.0);
+  }
+
+  private static Map.Entry<int[], Integer> unspill(String line) {
+
+    int index = line.indexOf('\t');
+
+    Preconditions.checkState(index > 0, "invalid line : %s", line);
+
+    int label = Integer.parseInt(line.substring(0, index), 10);
+    int[] features = Splitter.on(',').omitEmptyStrings().splitToList(line.substring(index + 1))
+        .stream().mapToInt(feature -> Integer.parseInt(feature, 10)).toArray();
+
+    return new AbstractMap.SimpleImmutableEntry<>(features, label);
+  }
+
+  private void fit(Model model, Iterator<Instance> instances) {
+    Iterators.partition(instances, batchSize_)
+        .forEachRemaining(batch -> model.update(batch, learningRate_, lambda_));
+  }
+
+  private static final class Instance {
+
+    private final int[] indices_;
+    private final double[] values_; // null for binary feature vectors
+    private final int label_;
+    private final double weight_;
+
+    Instance(int[] indices, double[] values, int label, double weight) {
+
+      Preconditions.checkNotNull(indices, "indices should not be null");
+      Preconditions.checkArgument(label == OK || label == KO, "label must be in {OK, KO}");
+
+      indices_ = indices;
+      values_ = values;
+      label_ = label;
+      weight_ = weight;
+    }
+  }
+
+  private static final class Model implements Classifier<double[]> {
+
+    private final double[] weights_;
+    private final double[] squaredGradients_;
+    private double bias_;
+    private double biasSquaredGradient_;
+
+    Model(int nbFeatures) {
+      weights_ = new double[nbFeatures];
+      squaredGradients_ = new double[nbFeatures];
+    }
+
+    @Override
+    public int predict(double[] x) {
+
+      Preconditions.checkArgument(x.length == weights_.length,
+          "Invalid feature vector length : %s found vs %s expected", x.length, weights_.length);
+
+      @Var
+      double score = bias_;
+
+      for (int j = 0; j < x.length; j++) {
+        if (x[j] != 0.0) {
+          score += weights_[j] * x[j];
+        }
+      }
+      return sigmoid(score) > 0.5 ? OK : KO;
+    }
+
+    double probability(int[] indices, double[] values) {
+
+      @Var
+      double score = bias_;
+
+      for (int k = 0; k < indices.length; k++) {
+        score += weights_[indices[k]] * (values == null ? 1.0 : values[k]);
+      }
+      return sigmoid(score);
+    }
+
+    /**
+     * Take a single AdaGrad step. Only the weights of the features active in the batch are updated
+     * : the L2 penalty is only applied to these weights. The decay of the weights of inactive
+     * features is skipped, not deferred i.e. rare features are less regularized than frequent ones.
+     */
+    void update(List<Instance> batch, double learningRate, double lambda) {
+
+      Map<Integer, Double> gradients = new HashMap<>();
+      @Var
+      double biasGradient = 0.0;
+
+      for (Instance instance : batch) {
+
+        double actual = instance.label_ == OK ? 1.0 : 0.0;
+        double error =
+            instance.weight_ * (probability(instance.indices_, instance.values_) - actual);
+
+        for (int k = 0; k < instance.indices_.length; k++) {
+          double value = instance.values_ == null ? 1.0 : instance.values_[k];
+          gradients.merge(instance.indices_[k], error * value, Double::sum);
+        }
+        biasGradient += error;
+      }
+
+      gradients.forEach((j, sum) -> {
+
+        double gradient = sum / batch.size() + lambda * weights_[j];
+
+        squaredGradients_[j] += gradient * gradient;
+        weights_[j] -= learningRate * gradient / (Math.sqrt(squaredGradients_[j]) + EPSILON);
+      });
+
+      double gradient = biasGradient / batch.size();
+
+      biasSquaredGradient_ += gradient * gradient;
+      bias_ -= learningRate * gradient / (Math.sqrt(biasSquaredGradient_) + EPSILON);
+    }
+
+    private static double sigmoid(double x) {
+      return 1.0 / (1.0 + Math.exp(-x));
+    }
+  }
+}
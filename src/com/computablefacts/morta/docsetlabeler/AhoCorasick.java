@@ -0,0 +1,111 @@
+package com.computablefacts.morta.docsetlabeler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+/**
+ * Aho-Corasick automaton over a list of strings.
+ *
+ * Each state remembers the smallest index of a string ending at this state or at one of its
+ * dictionary suffixes. Thus, {@link #firstContained(String)} answers "what is the first string in
+ * the list that is contained in {@code str}?" in {@code O(str.length())}.
+ */
+@CheckReturnValue
+final class AhoCorasick {
+
+  private final State root_ = new State();
+
+  AhoCorasick(List<String> strings) {
+
+    Preconditions.checkNotNull(strings, "strings should not be null");
+
+    // Build the trie
+    for (int i = 0; i < strings.size(); i++) {
+
+      @Var
+      State state = root_;
+      String str = strings.get(i);
+
+      for (int k = 0; k < str.length(); k++) {
+        state = state.next_.computeIfAbsent(str.charAt(k), c -> new State());
+      }
+      if (state != root_) {
+        state.first_ = Math.min(state.first_, i);
+      }
+    }
+
+    // Compute the failure links in breadth-first order
+    Queue<State> queue = new ArrayDeque<>();
+
+    root_.next_.values().forEach(child -> {
+      child.fail_ = root_;
+      queue.add(child);
+    });
+
+    while (!queue.isEmpty()) {
+
+      State state = queue.poll();
+
+      state.next_.forEach((c, child) -> {
+
+        @Var
+        State fail = state.fail_;
+
+        while (fail != root_ && !fail.next_.containsKey(c)) {
+          fail = fail.fail_;
+        }
+
+        State target = fail.next_.get(c);
+        child.fail_ = target == null ? root_ : target;
+        child.first_ = Math.min(child.first_, child.fail_.first_);
+
+        queue.add(child);
+      });
+    }
+  }
+
+  /**
+   * Returns the index of the first string contained in a given string.
+   *
+   * @param str the string to scan.
+   * @return an index if any, {@link Integer#MAX_VALUE} otherwise.
+   */
+  int firstContained(String str) {
+
+    Preconditions.checkNotNull(str, "str should not be null");
+
+    @Var
+    int first = Integer.MAX_VALUE;
+    @Var
+    State state = root_;
+
+    for (int k = 0; k < str.length(); k++) {
+
+      char c = str.charAt(k);
+
+      while (state != root_ && !state.next_.containsKey(c)) {
+        state = state.fail_;
+      }
+
+      state = state.next_.getOrDefault(c, root_);
+      first = Math.min(first, state.first_);
+    }
+    return first;
+  }
+
+  private final static class State {
+
+    private final Map<Character, State> next_ = new HashMap<>();
+    private State fail_;
+    private int first_ = Integer.MAX_VALUE;
+
+    State() {}
+  }
+}
@@ -0,0 +1,143 @@
+package com.computablefacts.morta.docsetlabeler;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.computablefacts.morta.Helpers;
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+/**
+ * Trie over the tokenized forms of a set of boosters.
+ *
+ * A booster is a pattern generated by {@link Helpers#features(int, String)} i.e. a sequence of
+ * words (ex. {@code [tT][hH][eE]}) separated by either {@code .} or {@code .+}. Each level of the
+ * trie holds either a word or a separator. Thus, {@link #find(String)} returns the boosters that
+ * would appear in the feature map of a given text, in a single scan of its tokens and without
+ * computing the feature map itself.
+ */
+@CheckReturnValue
+final class BoosterIndex {
+
+  private final int maxGroupSize_;
+  private final Node root_ = new Node();
+
+  BoosterIndex(int maxGroupSize, Collection<String> boosters) {
+
+    Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
+    Preconditions.checkNotNull(boosters, "boosters should not be null");
+
+    // Helpers.ngrams() does not build ngrams of more than 5 tokens
+    maxGroupSize_ = Math.min(maxGroupSize, 5);
+
+    for (String booster : boosters) {
+
+      @Var
+      Node node = root_;
+      StringBuilder word = new StringBuilder();
+
+      for (int k = 0; k < booster.length(); k++) {
+
+        char c = booster.charAt(k);
+
+        if (c != '.') {
+          word.append(c);
+          continue;
+        }
+
+        node = node.next(word.toString());
+        word.setLength(0);
+
+        if (k + 1 < booster.length() && booster.charAt(k + 1) == '+') {
+          node = node.next(".+");
+          k++;
+        } else {
+          node = node.next(".");
+        }
+      }
+      node = node.next(word.toString());
+      node.booster_ = booster;
+    }
+  }
+
+  /**
+   * Returns the boosters found in a given text.
+   *
+   * @param text the text to scan.
+   * @return a set of boosters.
+   */
+  Set<String> find(String text) {
+
+    Preconditions.checkNotNull(text, "text should not be null");
+
+    List<String> tokens = Helpers.tokens(text);
+    String[] words = new String[tokens.size()];
+
+    // A null word cannot be transformed into a pattern and an empty word is a separator
+    for (int i = 0; i < tokens.size(); i++) {
+      words[i] = Helpers.pattern(tokens.get(i));
+    }
+
+    Set<String> boosters = new HashSet<>();
+
+    for (int i = 0; i < words.length; i++) {
+
+      if (words[i] == null || words[i].isEmpty()) {
+        continue;
+      }
+
+      @Var
+      Node node = root_.next_.get(words[i]);
+
+      if (node == null) {
+        continue;
+      }
+      if (node.booster_ != null) {
+        boosters.add(node.booster_);
+      }
+
+      // Count the number of '_' between two consecutive words
+      @Var
+      int gap = 0;
+
+      for (int j = i + 1; node != null && j < Math.min(words.length, i + maxGroupSize_); j++) {
+
+        if (words[j] == null) {
+          break;
+        }
+
+        gap++;
+
+        if (words[j].isEmpty()) {
+          continue;
+        }
+
+        node = node.next_.get(gap == 1 ? "." : ".+");
+        node = node == null ? null : node.next_.get(words[j]);
+        gap = 0;
+
+        if (node != null && node.booster_ != null) {
+          boosters.add(node.booster_);
+        }
+      }
+    }
+    return boosters;
+  }
+
+  private final static class Node {
+
+    private final Map<String, Node> next_ = new HashMap<>();
+    private String booster_;
+
+    Node() {}
+
+    Node next(String key) {
+      return next_.computeIfAbsent(key, k -> new Node());
+    }
+  }
+}
@@ -3,18 +3,29 @@ package com.computablefacts.morta.docsetlabeler;
 import static com.computablefacts.morta.IGoldLabel.SANITIZE_SNIPPET;
 import static com.computablefacts.morta.Repository.ACCEPT;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import javax.validation.constraints.NotNull;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.computablefacts.asterix.DocSetLabeler;
-import com.computablefacts.morta.Helpers;
+import com.computablefacts.logfmt.LogFormatter;
 import com.computablefacts.morta.textcat.TextCategorizer;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.Var;
 import com.google.re2j.Matcher;
@@ -22,47 +33,98 @@ import com.google.re2j.Pattern;
 
 /**
  * Guesstimate interesting patterns from positively/negatively annotated texts.
+ * <p>
+ * When {@code parallelism > 1}, candidates extraction and scoring are performed ahead of time for
+ * all pages on a work-stealing pool. The scores are then merged sequentially by
+ * {@link DocSetLabeler}, so the output does not depend on the degree of parallelism.
  */
 @CheckReturnValue
 final public class DocSetLabelerImpl extends DocSetLabeler {
 
-  private final int maxGroupSize_;
+  private static final Logger logger_ = LoggerFactory.getLogger(DocSetLabelerImpl.class);
+  private static final Pattern SANITIZE = Pattern.compile(SANITIZE_SNIPPET);
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
   private final TextCategorizer categorizer_;
   private final int length_;
   private final int max_;
+  private final int parallelism_;
 
   private final Set<String> boosters_ = new HashSet<>();
+  private final BoosterIndex index_;
+
+  // Candidates are re-evaluated on each page : compile each one of them only once
+  private final Map<String, Pattern> patterns_ = new ConcurrentHashMap<>();
+
+  // The same snippets appear again and again : categorize each one of them only once
+  private final Cache<Long, Boolean> snippets_ =
+      CacheBuilder.newBuilder().maximumSize(250_000).build();
+
+  // In parallel mode, the y-score of each (page, candidate) pair is computed in init()
+  private final Map<String, Map<String, Double>> scores_ = new ConcurrentHashMap<>();
 
   public DocSetLabelerImpl(int maxGroupSize, Multiset<String> boosters, TextCategorizer categorizer,
       int length) {
+    this(maxGroupSize, boosters, categorizer, length, 1);
+  }
+
+  public DocSetLabelerImpl(int maxGroupSize, Multiset<String> boosters, TextCategorizer categorizer,
+      int length, int parallelism) {
 
     Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be > 0");
     Preconditions.checkNotNull(boosters, "boosters must be > 0");
     Preconditions.checkNotNull(categorizer, "categorizer must be > 0");
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
 
-    maxGroupSize_ = maxGroupSize;
     categorizer_ = categorizer;
     length_ = length;
+    parallelism_ = parallelism;
     boosters_.addAll(boosters);
     max_ = boosters_.stream().mapToInt(String::length).max().orElse(0);
+    index_ = new BoosterIndex(maxGroupSize, boosters_);
   }
 
   @Override
   protected void init(@NotNull List<String> corpus, @NotNull List<String> subsetOk,
-      @NotNull List<String> subsetKo) {}
+      @NotNull List<String> subsetKo) {
+
+    if (parallelism_ <= 1) {
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism_);
+
+    try {
+      pool.submit(() -> corpus.parallelStream().forEach(text -> scores_.put(text, scores(text))))
+          .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger_.error(LogFormatter.create().message(e).formatError());
+      scores_.clear(); // fallback to the sequential mode
+    } catch (ExecutionException e) {
+      logger_.error(LogFormatter.create().message(e).formatError());
+      scores_.clear(); // fallback to the sequential mode
+    } finally {
+      pool.shutdown();
+    }
+  }
 
   @Override
-  protected void uinit() {}
+  protected void uinit() {
+    scores_.clear();
+    patterns_.clear();
+    snippets_.invalidateAll();
+  }
 
   @Override
   protected Set<String> candidates(String text) {
 
-    Map<String, Double> features = Helpers.features(maxGroupSize_, text);
-    Set<String> intersection = Sets.intersection(features.keySet(), boosters_);
-    List<String> list = new ArrayList<>(intersection);
-    list.sort(Comparator.comparingInt(String::length).reversed());
+    Map<String, Double> scores = scores_.get(text);
 
-    return Sets.newHashSet(list.subList(0, Math.min(list.size(), 20)));
+    if (scores != null) {
+      return new HashSet<>(scores.keySet());
+    }
+    return newCandidates(text);
   }
 
   @Override
@@ -76,67 +138,99 @@ final public class DocSetLabelerImpl extends DocSetLabeler {
   @Override
   protected double computeY(String text, String candidate) {
 
-    Set<String> set = new HashSet<>();
+    Map<String, Double> scores = scores_.get(text);
 
-    if (!Strings.isNullOrEmpty(text)) {
+    if (scores != null && scores.containsKey(candidate)) {
+      return scores.get(candidate);
+    }
+    return newY(text, candidate);
+  }
 
-      Pattern pattern = Pattern.compile(candidate, Pattern.MULTILINE | Pattern.DOTALL);
-      Matcher matcher = pattern.matcher(text);
+  @Override
+  protected List<Map.Entry<String, Double>> filter(
+      @NotNull List<Map.Entry<String, Double>> candidates) {
 
-      while (matcher.find()) {
+    // Here, candidates are ranked in decreasing weight
+    // Remove a candidate iif it is a substring or it is included in a higher ranked candidate
+    List<String> keys = candidates.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    SuffixAutomaton substrings = new SuffixAutomaton(keys);
+    AhoCorasick superstrings = new AhoCorasick(keys);
+    List<Map.Entry<String, Double>> newCandidates = new ArrayList<>();
 
-        int start = matcher.start();
-        int end = matcher.end();
+    for (int i = 0; i < candidates.size(); i++) {
 
-        int newStart = Math.max(0, start - ((length_ - (end - start)) / 2));
-        int newEnd = Math.min(text.length(), end + ((length_ - (end - start)) / 2));
+      String cur = keys.get(i);
 
-        set.add(text.substring(newStart, newEnd));
+      if (substrings.firstContaining(cur) >= i && superstrings.firstContained(cur) >= i) {
+        newCandidates.add(candidates.get(i));
       }
     }
-    if (set.isEmpty()) {
-      return Double.MIN_VALUE;
-    }
+    return newCandidates;
+  }
+
+  private Set<String> newCandidates(String text) {
+
+    List<String> list = new ArrayList<>(index_.find(text));
+    list.sort(Comparator.comparingInt(String::length).reversed());
+
+    return Sets.newHashSet(list.subList(0, Math.min(list.size(), 20)));
+  }
+
+  private Map<String, Double> scores(String text) {
 
-    Set<String> ok = set.stream()
-        .filter(
-            span -> ACCEPT.equals(categorizer_.categorize(span.replaceAll(SANITIZE_SNIPPET, " "))))
-        .collect(Collectors.toSet());
+    Map<String, Double> scores = new HashMap<>();
 
-    if (!ok.isEmpty()) {
-      return 1.0;
+    for (String candidate : newCandidates(text)) {
+      scores.put(candidate, newY(text, candidate));
     }
-    return Double.MIN_VALUE;
+    return scores;
   }
 
-  @Override
-  protected List<Map.Entry<String, Double>> filter(
-      @NotNull List<Map.Entry<String, Double>> candidates) {
+  private double newY(String text, String candidate) {
 
-    // Here, candidates are ranked in decreasing weight
-    // Remove a candidate iif it is a substring or it is included in a higher ranked candidate
-    List<Map.Entry<String, Double>> newCandidates = new ArrayList<>();
+    if (Strings.isNullOrEmpty(text)) {
+      return Double.MIN_VALUE;
+    }
 
-    for (int i = 0; i < candidates.size(); i++) {
+    // Overlapping matches often yield the same window : deduplicate them before categorizing
+    Set<String> set = new HashSet<>();
+    Matcher matcher = pattern(candidate).matcher(text);
 
-      @Var
-      boolean match = false;
-      String cur = candidates.get(i).getKey();
+    while (matcher.find()) {
 
-      for (int k = 0; k < i; k++) {
+      int start = matcher.start();
+      int end = matcher.end();
 
-        String prev = candidates.get(k).getKey();
+      int newStart = Math.max(0, start - ((length_ - (end - start)) / 2));
+      int newEnd = Math.min(text.length(), end + ((length_ - (end - start)) / 2));
 
-        if (prev.contains(cur) || cur.contains(prev)) {
-          match = true;
-          break;
-        }
-      }
+      set.add(text.substring(newStart, newEnd));
+    }
 
-      if (!match) {
-        newCandidates.add(candidates.get(i));
+    for (String span : set) {
+      if (isAccepted(span)) {
+        return 1.0;
       }
     }
-    return newCandidates;
+    return Double.MIN_VALUE;
+  }
+
+  private Pattern pattern(String candidate) {
+    return patterns_.computeIfAbsent(candidate,
+        c -> Pattern.compile(c, Pattern.MULTILINE | Pattern.DOTALL));
+  }
+
+  private boolean isAccepted(String span) {
+
+    String snippet = SANITIZE.matcher(span).replaceAll(" ");
+    long hash = HASH.hashString(snippet, StandardCharsets.UTF_8).asLong();
+    @Var
+    Boolean isAccepted = snippets_.getIfPresent(hash);
+
+    if (isAccepted == null) {
+      isAccepted = ACCEPT.equals(categorizer_.categorize(snippet));
+      snippets_.put(hash, isAccepted);
+    }
+    return isAccepted;
   }
 }
@@ -0,0 +1,141 @@
+package com.computablefacts.morta.docsetlabeler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+/**
+ * Generalized suffix automaton over a list of strings.
+ *
+ * Each state remembers the smallest index of a string containing the substrings it recognizes.
+ * Thus, {@link #firstContaining(String)} answers "what is the first string in the list that
+ * contains {@code str}?" in {@code O(str.length())}.
+ */
+@CheckReturnValue
+final class SuffixAutomaton {
+
+  private final State root_ = new State(0);
+
+  SuffixAutomaton(List<String> strings) {
+
+    Preconditions.checkNotNull(strings, "strings should not be null");
+
+    List<State> states = new ArrayList<>();
+    states.add(root_);
+
+    for (int i = 0; i < strings.size(); i++) {
+
+      @Var
+      State last = root_;
+      String str = strings.get(i);
+
+      for (int k = 0; k < str.length(); k++) {
+        last = extend(last, str.charAt(k), states);
+        last.first_ = Math.min(last.first_, i);
+      }
+    }
+
+    // A substring occurs in every string that reaches one of the states in its suffix-link subtree
+    states.sort(Comparator.comparingInt((State s) -> s.len_).reversed());
+    states.stream().filter(state -> state.link_ != null)
+        .forEach(state -> state.link_.first_ = Math.min(state.link_.first_, state.first_));
+  }
+
+  /**
+   * Returns the index of the first string that contains a given string.
+   *
+   * @param str the string to look for.
+   * @return an index if any, {@link Integer#MAX_VALUE} otherwise.
+   */
+  int firstContaining(String str) {
+
+    Preconditions.checkNotNull(str, "str should not be null");
+
+    @Var
+    State state = root_;
+
+    for (int k = 0; k < str.length(); k++) {
+
+      state = state.next_.get(str.charAt(k));
+
+      if (state == null) {
+        return Integer.MAX_VALUE;
+      }
+    }
+    return state == root_ ? Integer.MAX_VALUE : state.first_;
+  }
+
+  private State extend(State last, char c, List<State> states) {
+
+    State q = last.next_.get(c);
+
+    if (q != null) {
+      if (q.len_ == last.len_ + 1) {
+        return q;
+      }
+      return split(last, c, q, last.len_ + 1, states);
+    }
+
+    State cur = new State(last.len_ + 1);
+    states.add(cur);
+
+    @Var
+    State p = last;
+
+    while (p != null && !p.next_.containsKey(c)) {
+      p.next_.put(c, cur);
+      p = p.link_;
+    }
+
+    if (p == null) {
+      cur.link_ = root_;
+    } else {
+
+      State r = p.next_.get(c);
+
+      if (p.len_ + 1 == r.len_) {
+        cur.link_ = r;
+      } else {
+        cur.link_ = split(p, c, r, p.len_ + 1, states);
+      }
+    }
+    return cur;
+  }
+
+  private State split(State from, char c, State q, int len, List<State> states) {
+
+    State clone = new State(len);
+    clone.next_.putAll(q.next_);
+    clone.link_ = q.link_;
+    states.add(clone);
+
+    @Var
+    State p = from;
+
+    while (p != null && p.next_.get(c) == q) {
+      p.next_.put(c, clone);
+      p = p.link_;
+    }
+
+    q.link_ = clone;
+    return clone;
+  }
+
+  private final static class State {
+
+    private final int len_;
+    private final Map<Character, State> next_ = new HashMap<>();
+    private State link_;
+    private int first_ = Integer.MAX_VALUE;
+
+    State(int len) {
+      len_ = len;
+    }
+  }
+}
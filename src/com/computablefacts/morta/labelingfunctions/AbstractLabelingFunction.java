@@ -1,9 +1,13 @@
 package com.computablefacts.morta.labelingfunctions;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 
+import com.computablefacts.asterix.Span;
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.CheckReturnValue;
 
@@ -33,6 +37,29 @@ public abstract class AbstractLabelingFunction<T> implements Function<T, Integer
     return new HashSet<>();
   }
 
+  /**
+   * Locate the matches of the labeling function in a given text.
+   *
+   * @param text the text.
+   * @return the matches ordered by position.
+   */
+  public List<Span> spans(String text) {
+    return new ArrayList<>();
+  }
+
+  /**
+   * Derive the output of the labeling function from the matches returned by
+   * {@link #spans(String)}. It allows a caller that already located the matches to skip a second
+   * pass over the text.
+   *
+   * @param spans the matches.
+   * @return the output of the labeling function if it can be derived from its matches,
+   *         {@link Optional#empty()} otherwise.
+   */
+  public Optional<Integer> output(List<Span> spans) {
+    return Optional.empty();
+  }
+
   public double weight() {
     return 1; // must be between 0 (worst) and 1 (best)
   }
@@ -1,8 +1,12 @@
 package com.computablefacts.morta.labelingfunctions;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
+import com.computablefacts.asterix.Span;
 import com.google.common.base.Strings;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.re2j.Matcher;
@@ -30,15 +34,27 @@ final public class MatchRegexLabelingFunction extends AbstractLabelingFunction<S
   @Override
   public Set<String> matches(String text) {
     Set<String> set = new HashSet<>();
+    for (Span span : spans(text)) {
+      set.add(span.text());
+    }
+    return set;
+  }
+
+  @Override
+  public List<Span> spans(String text) {
+    List<Span> spans = new ArrayList<>();
     if (!Strings.isNullOrEmpty(text)) {
       Matcher matcher = pattern().matcher(text);
       while (matcher.find()) {
-        int start = matcher.start();
-        int end = matcher.end();
-        set.add(text.substring(start, end));
+        spans.add(new Span(text, matcher.start(), matcher.end()));
       }
     }
-    return set;
+    return spans;
+  }
+
+  @Override
+  public Optional<Integer> output(List<Span> spans) {
+    return Optional.of(spans.isEmpty() ? ABSTAIN : OK);
   }
 
   @Override
@@ -1,13 +1,19 @@
 package com.computablefacts.morta.labelmodels;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import com.computablefacts.asterix.View;
 import com.computablefacts.morta.*;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Streams;
 import com.google.common.collect.Table;
 import com.google.errorprone.annotations.CheckReturnValue;
 
@@ -16,6 +22,8 @@ import smile.stat.hypothesis.CorTest;
 @CheckReturnValue
 public abstract class AbstractLabelModel<T> {
 
+  protected static final int BATCH_SIZE = 1000;
+
   private final Dictionary lfNames_;
   private final Dictionary lfLabels_;
   private final List<? extends AbstractLabelingFunction<T>> lfs_;
@@ -164,4 +172,71 @@ public abstract class AbstractLabelModel<T> {
    * @return output a prediction for each data point.
    */
   public abstract List<Integer> predict(List<T> data);
+
+  /**
+   * Compute the probability of each label. By default, the predicted label gets a probability of 1
+   * and an abstention is spread uniformly across all labels.
+   *
+   * @param data a list of data points.
+   * @return probabilities[n][k] with n the number of data points and k the number of distinct
+   *         labels.
+   */
+  public double[][] predictProba(List<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    int cardinality = lfLabels_.size();
+    List<Integer> predictions = predict(data);
+    double[][] probabilities = new double[predictions.size()][cardinality];
+
+    for (int i = 0; i < predictions.size(); i++) {
+
+      int prediction = predictions.get(i);
+
+      if (prediction == AbstractLabelingFunction.ABSTAIN) {
+        Arrays.fill(probabilities[i], 1.0 / cardinality);
+      } else {
+        probabilities[i][prediction] = 1.0;
+      }
+    }
+    return probabilities;
+  }
+
+  /**
+   * Make predictions lazily. By default, data points are processed in batches of
+   * {@link #BATCH_SIZE} elements.
+   *
+   * @param data data points.
+   * @return output a prediction for each data point.
+   */
+  public Iterator<Integer> predict(Iterator<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    return Iterators.concat(Iterators.transform(Iterators.partition(data, BATCH_SIZE),
+        batch -> predict(batch).iterator()));
+  }
+
+  /**
+   * Make predictions lazily.
+   *
+   * @param data data points.
+   * @return output a prediction for each data point.
+   */
+  public Stream<Integer> predict(Stream<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    return Streams.stream(predict(data.iterator()));
+  }
+
+  /**
+   * Make a prediction.
+   *
+   * @param data a single data point.
+   * @return output a prediction.
+   */
+  public int predictOne(T data) {
+    return predict(Collections.singletonList(data)).get(0);
+  }
 }
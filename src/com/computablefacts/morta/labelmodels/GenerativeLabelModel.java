@@ -0,0 +1,349 @@
+package com.computablefacts.morta.labelmodels;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.computablefacts.morta.Dictionary;
+import com.computablefacts.morta.FeatureVector;
+import com.computablefacts.morta.IGoldLabel;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+import com.google.errorprone.annotations.Var;
+
+/**
+ * A generative label model. Each labeling function is assumed to be conditionally independent of
+ * the others given the true label, to vote with a given propensity and, when it votes, to output
+ * the true label with a given accuracy. The accuracies and the class priors are learned from the
+ * (unlabeled) output of the labeling functions using the Expectation-Maximization algorithm.
+ *
+ * Contrary to {@link MajorityLabelModel}, the vote of an accurate labeling function weighs more
+ * than the vote of an inaccurate one. Contrary to {@link TreeLabelModel}, no gold label is needed.
+ *
+ * @param <T> data type.
+ */
+@CheckReturnValue
+final public class GenerativeLabelModel<T> extends AbstractLabelModel<T> {
+
+  // Before training, labeling functions are assumed to be better than random
+  private static final double INITIAL_ACCURACY = 0.7;
+  private static final double MIN_ACCURACY = 0.0001;
+  private static final double MAX_ACCURACY = 0.9999;
+
+  private final int maxIterations_;
+  private final double tolerance_;
+  private double[] accuracies_;
+  private double[] propensities_;
+  private double[] priors_;
+
+  public GenerativeLabelModel(GenerativeLabelModel<T> labelModel) {
+    this(labelModel.lfs(), labelModel.maxIterations_, labelModel.tolerance_);
+    accuracies_ = labelModel.accuracies_ == null ? null : labelModel.accuracies_.clone();
+    propensities_ = labelModel.propensities_ == null ? null : labelModel.propensities_.clone();
+    priors_ = labelModel.priors_ == null ? null : labelModel.priors_.clone();
+  }
+
+  public GenerativeLabelModel(List<? extends AbstractLabelingFunction<T>> lfs) {
+    this(lfs, 100, 0.00001);
+  }
+
+  public GenerativeLabelModel(List<? extends AbstractLabelingFunction<T>> lfs, int maxIterations,
+      double tolerance) {
+
+    super(lfsNames(lfs), lfsLabels(), lfs);
+
+    Preconditions.checkArgument(maxIterations > 0, "maxIterations must be > 0");
+    Preconditions.checkArgument(tolerance >= 0, "tolerance must be >= 0");
+
+    maxIterations_ = maxIterations;
+    tolerance_ = tolerance;
+  }
+
+  private static <T> Dictionary lfsNames(List<? extends AbstractLabelingFunction<T>> lfs) {
+
+    Preconditions.checkNotNull(lfs, "lfs should not be null");
+
+    Dictionary lfNames = new Dictionary();
+
+    for (int i = 0; i < lfs.size(); i++) {
+      lfNames.put(lfs.get(i).name(), i);
+    }
+    return lfNames;
+  }
+
+  private static Dictionary lfsLabels() {
+
+    Dictionary lfOutputs = new Dictionary();
+    lfOutputs.put("KO", KO);
+    lfOutputs.put("OK", OK);
+
+    return lfOutputs;
+  }
+
+  /**
+   * Learn the labeling functions accuracies from the data points associated with the gold labels.
+   * The gold labels themselves are ignored.
+   *
+   * @param goldLabels gold labels.
+   */
+  @Override
+  public void fit(List<IGoldLabel<T>> goldLabels) {
+
+    Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
+
+    fit(goldLabels.stream().map(goldLabel -> instance(goldLabel.data())).toArray(int[][]::new));
+  }
+
+  /**
+   * Learn the labeling functions accuracies from the output of the labeling functions.
+   *
+   * @param instances output of the labeling functions for each datapoint i.e. instances[n][m] with
+   *        n the number of data points and m the number of labeling functions.
+   */
+  public void fit(int[][] instances) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+
+    int nbLabelingFunctions = lfs().size();
+    int cardinality = lfLabels().size();
+
+    Preconditions.checkArgument(
+        Arrays.stream(instances).allMatch(instance -> instance.length == nbLabelingFunctions),
+        "Invalid feature vector length : %s expected", nbLabelingFunctions);
+
+    // Propensities do not depend on the true label : count how often each labeling function votes
+    int[] nbVotes = new int[nbLabelingFunctions];
+
+    for (int[] instance : instances) {
+      for (int m = 0; m < nbLabelingFunctions; m++) {
+        if (instance[m] > ABSTAIN) {
+          nbVotes[m]++;
+        }
+      }
+    }
+
+    double[] accuracies = new double[nbLabelingFunctions];
+    double[] priors = new double[cardinality];
+
+    Arrays.fill(accuracies, INITIAL_ACCURACY);
+    Arrays.fill(priors, 1.0 / cardinality);
+
+    double[][] posteriors = new double[instances.length][cardinality];
+    @Var
+    double logLikelihood = Double.NEGATIVE_INFINITY;
+
+    for (int iteration = 0; iteration < maxIterations_; iteration++) {
+
+      // E-step : compute the posterior distribution of the true label of each data point
+      double newLogLikelihood = IntStream.range(0, instances.length).parallel()
+          .mapToDouble(i -> posterior(instances[i], accuracies, priors, posteriors[i])).sum();
+
+      // M-step : the accuracy of a labeling function is the expected fraction of its votes that
+      // agree with the true label
+      IntStream.range(0, nbLabelingFunctions).parallel().forEach(m -> {
+
+        @Var
+        double agreements = 0.0;
+
+        for (int i = 0; i < instances.length; i++) {
+          if (instances[i][m] > ABSTAIN) {
+            agreements += posteriors[i][instances[i][m]];
+          }
+        }
+
+        // Laplace smoothing
+        accuracies[m] = Math.min(MAX_ACCURACY,
+            Math.max(MIN_ACCURACY, (agreements + 1.0) / (nbVotes[m] + 2.0)));
+      });
+
+      for (int k = 0; k < cardinality; k++) {
+
+        int label = k;
+        double sum = Arrays.stream(posteriors).parallel().mapToDouble(p -> p[label]).sum();
+
+        priors[k] = (sum + 1.0) / (instances.length + cardinality);
+      }
+
+      if (Math.abs(newLogLikelihood - logLikelihood) <= tolerance_ * Math.abs(newLogLikelihood)) {
+        break;
+      }
+      logLikelihood = newLogLikelihood;
+    }
+
+    accuracies_ = accuracies;
+    priors_ = priors;
+    propensities_ = Arrays.stream(nbVotes)
+        .mapToDouble(nb -> instances.length == 0 ? 0.0 : (double) nb / instances.length).toArray();
+  }
+
+  /**
+   * Compute the probability of each label.
+   *
+   * @param data a list of data points.
+   * @return a {@link FeatureVector} for each data point. Each column of the {@link FeatureVector}
+   *         represents a distinct label. Thus, the {@link FeatureVector} length is equal to the
+   *         number of labels.
+   */
+  public List<FeatureVector<Double>> probabilities(List<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+    Preconditions.checkState(accuracies_ != null, "model should be trained first");
+
+    return Arrays.stream(predictProba(data)).map(FeatureVector::of).collect(Collectors.toList());
+  }
+
+  @Override
+  public double[][] predictProba(List<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+    Preconditions.checkState(accuracies_ != null, "model should be trained first");
+
+    double[][] probabilities = new double[data.size()][priors_.length];
+
+    for (int i = 0; i < data.size(); i++) {
+      posterior(instance(data.get(i)), accuracies_, priors_, probabilities[i]);
+    }
+    return probabilities;
+  }
+
+  /**
+   * Make predictions. Each data point is assigned the label with the highest probability.
+   *
+   * @param data a list of data points.
+   * @return output a prediction for each data point.
+   */
+  @Override
+  public List<Integer> predict(List<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    List<Integer> predictions = new ArrayList<>(data.size());
+
+    for (T datum : data) {
+      predictions.add(predictOne(datum));
+    }
+    return predictions;
+  }
+
+  @Override
+  public int predictOne(T data) {
+
+    Preconditions.checkState(accuracies_ != null, "model should be trained first");
+
+    double[] posterior = new double[priors_.length];
+    posterior(instance(data), accuracies_, priors_, posterior);
+
+    @Var
+    int label = 0;
+
+    for (int k = 1; k < posterior.length; k++) {
+      if (posterior[k] > posterior[label]) {
+        label = k;
+      }
+    }
+    return label;
+  }
+
+  /**
+   * The probability that a labeling function outputs the true label when it does not abstain.
+   *
+   * @return an accuracy for each labeling function.
+   */
+  public double[] accuracies() {
+    return accuracies_ == null ? null : accuracies_.clone();
+  }
+
+  /**
+   * The probability that a labeling function does not abstain.
+   *
+   * @return a propensity for each labeling function.
+   */
+  public double[] propensities() {
+    return propensities_ == null ? null : propensities_.clone();
+  }
+
+  /**
+   * The probability of each label.
+   *
+   * @return a prior for each label.
+   */
+  public double[] priors() {
+    return priors_ == null ? null : priors_.clone();
+  }
+
+  public int maxIterations() {
+    return maxIterations_;
+  }
+
+  public double tolerance() {
+    return tolerance_;
+  }
+
+  private int[] instance(T data) {
+
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
+    int[] instance = new int[lfs.size()];
+
+    for (int m = 0; m < lfs.size(); m++) {
+      instance[m] = lfs.get(m).apply(data);
+    }
+    return instance;
+  }
+
+  /**
+   * Compute the posterior distribution of the true label of a single data point.
+   *
+   * @param instance output of the labeling functions for the data point.
+   * @param accuracies accuracy of each labeling function.
+   * @param priors prior of each label.
+   * @param posterior the posterior distribution (output).
+   * @return the log-likelihood of the labeling functions output.
+   */
+  private static double posterior(int[] instance, double[] accuracies, double[] priors,
+      double[] posterior) {
+
+    int cardinality = priors.length;
+
+    for (int k = 0; k < cardinality; k++) {
+      posterior[k] = Math.log(priors[k]);
+    }
+
+    // Errors are spread uniformly across the remaining labels
+    for (int m = 0; m < instance.length; m++) {
+      if (instance[m] > ABSTAIN) {
+
+        double agree = Math.log(accuracies[m]);
+        double disagree = Math.log((1.0 - accuracies[m]) / (cardinality - 1));
+
+        for (int k = 0; k < cardinality; k++) {
+          posterior[k] += instance[m] == k ? agree : disagree;
+        }
+      }
+    }
+
+    // Normalize using the log-sum-exp trick
+    @Var
+    double max = Double.NEGATIVE_INFINITY;
+
+    for (int k = 0; k < cardinality; k++) {
+      max = Math.max(max, posterior[k]);
+    }
+
+    @Var
+    double sum = 0.0;
+
+    for (int k = 0; k < cardinality; k++) {
+      posterior[k] = Math.exp(posterior[k] - max);
+      sum += posterior[k];
+    }
+    for (int k = 0; k < cardinality; k++) {
+      posterior[k] /= sum;
+    }
+    return max + Math.log(sum);
+  }
+}
@@ -3,14 +3,14 @@ package com.computablefacts.morta.labelmodels;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
-import com.computablefacts.asterix.View;
 import com.computablefacts.morta.Dictionary;
 import com.computablefacts.morta.FeatureVector;
-import com.computablefacts.morta.Helpers;
 import com.computablefacts.morta.IGoldLabel;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
 import com.google.common.base.Preconditions;
@@ -227,6 +227,119 @@ final public class MajorityLabelModel<T> extends AbstractLabelModel<T> {
     return predictions;
   }
 
+  /**
+   * Try to predict the label associated with each data point using a majority vote. The output is
+   * the same as chaining {@link #probabilities(Dictionary, Dictionary, List)} and
+   * {@link #predictions(Dictionary, Dictionary, List, eTieBreakPolicy, double)} but no
+   * intermediate vector is allocated.
+   *
+   * @param instances output of the labeling functions for each datapoint i.e. instances[n][m] with
+   *        n the number of data points and m the number of labeling functions.
+   * @param cardinality the number of distinct labels.
+   * @param tieBreakPolicy tie-break policy.
+   * @param tolerance tolerance.
+   * @return a single label for each data point.
+   */
+  public static int[] predictions(int[][] instances, int cardinality,
+      eTieBreakPolicy tieBreakPolicy, double tolerance) {
+
+    Preconditions.checkNotNull(instances, "instances should not be null");
+    Preconditions.checkArgument(cardinality >= 2, "cardinality must be >= 2");
+    Preconditions.checkNotNull(tieBreakPolicy, "tieBreakPolicy should not be null");
+    Preconditions.checkArgument(tolerance >= 0, "tolerance must be >= 0");
+
+    Random rand = new Random();
+    int[] counts = new int[cardinality];
+    int[] predictions = new int[instances.length];
+
+    for (int i = 0; i < instances.length; i++) {
+      predictions[i] = prediction(instances[i], i, counts, tieBreakPolicy, tolerance, rand);
+    }
+    return predictions;
+  }
+
+  /**
+   * Predict the label associated with a single data point.
+   *
+   * @param instance output of the labeling functions for the data point.
+   * @param position position of the data point in the dataset (used by
+   *        {@link eTieBreakPolicy#RANDOM}).
+   * @param counts a buffer whose length is equal to the number of distinct labels.
+   * @param tieBreakPolicy tie-break policy.
+   * @param tolerance tolerance.
+   * @param rand random number generator (used by {@link eTieBreakPolicy#TRUE_RANDOM}).
+   * @return a single label.
+   */
+  static int prediction(int[] instance, int position, int[] counts, eTieBreakPolicy tieBreakPolicy,
+      double tolerance, Random rand) {
+
+    // Count how many times each label is outputted across all labeling functions
+    Arrays.fill(counts, 0);
+
+    for (int m = 0; m < instance.length; m++) {
+      if (instance[m] > ABSTAIN) {
+        counts[instance[m]]++;
+      }
+    }
+
+    // Find the maximum number of votes a single label can get
+    @Var
+    int max = 0;
+
+    for (int k = 0; k < counts.length; k++) {
+      max = Math.max(max, counts[k]);
+    }
+
+    // Each label that gets the maximum number of votes has a probability of 1/nbMax and 0
+    // otherwise
+    @Var
+    int nbMax = 0;
+
+    for (int k = 0; k < counts.length; k++) {
+      if (counts[k] == max) {
+        nbMax++;
+      }
+    }
+
+    // A label is a candidate iif the distance between its probability and the highest probability
+    // found is below the tolerance
+    double probMax = 1.0 / nbMax;
+    boolean isMaxTied = 0.0 < tolerance;
+    boolean isOtherTied = probMax < tolerance;
+    int nbTies = (isMaxTied ? nbMax : 0) + (isOtherTied ? counts.length - nbMax : 0);
+
+    if (nbTies == 0) {
+      return ABSTAIN; // TODO : not sure about this
+    }
+
+    @Var
+    int tie;
+
+    if (nbTies == 1) {
+      tie = 0;
+    } else if (tieBreakPolicy.equals(eTieBreakPolicy.RANDOM)) {
+      tie = position % nbTies;
+    } else if (tieBreakPolicy.equals(eTieBreakPolicy.TRUE_RANDOM)) {
+      tie = rand.nextInt(nbTies);
+    } else if (tieBreakPolicy.equals(eTieBreakPolicy.ABSTAIN)) {
+      return ABSTAIN;
+    } else {
+      Preconditions.checkState(false, "Invalid tie-break policy : %s", tieBreakPolicy);
+      return ABSTAIN;
+    }
+
+    // Return the label of the selected tie
+    for (int k = 0; k < counts.length; k++) {
+      if (counts[k] == max ? isMaxTied : isOtherTied) {
+        if (tie == 0) {
+          return k;
+        }
+        tie--;
+      }
+    }
+    return ABSTAIN;
+  }
+
   @Override
   public void fit(List<IGoldLabel<T>> goldLabels) {}
 
@@ -235,10 +348,102 @@ final public class MajorityLabelModel<T> extends AbstractLabelModel<T> {
 
     Preconditions.checkNotNull(data, "data should not be null");
 
-    return predictions(lfNames(), lfLabels(),
-        probabilities(lfNames(), lfLabels(),
-            View.of(data).map(Helpers.label(lfs())).map(Map.Entry::getValue).toList()),
-        tieBreakPolicy_, tolerance_);
+    List<Integer> predictions = new ArrayList<>(data.size());
+    predict(data.iterator()).forEachRemaining(predictions::add);
+    return predictions;
+  }
+
+  /**
+   * Make predictions lazily. Data points are processed one at a time using the same buffers.
+   *
+   * @param data data points.
+   * @return output a prediction for each data point.
+   */
+  @Override
+  public Iterator<Integer> predict(Iterator<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
+    int[] counts = new int[lfLabels().size()];
+    int[] instance = new int[lfs.size()];
+
+    return new Iterator<Integer>() {
+
+      private int position_ = 0;
+
+      @Override
+      public boolean hasNext() {
+        return data.hasNext();
+      }
+
+      @Override
+      public Integer next() {
+
+        T datum = data.next();
+
+        for (int m = 0; m < lfs.size(); m++) {
+          instance[m] = lfs.get(m).apply(datum);
+        }
+        return prediction(instance, position_++, counts, tieBreakPolicy_, tolerance_,
+            ThreadLocalRandom.current());
+      }
+    };
+  }
+
+  /**
+   * Compute the probability of each label using a majority vote. Each label that gets the maximum
+   * number of votes is equally likely.
+   *
+   * @param data a list of data points.
+   * @return probabilities[n][k] with n the number of data points and k the number of distinct
+   *         labels.
+   */
+  @Override
+  public double[][] predictProba(List<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
+    int[] counts = new int[lfLabels().size()];
+    double[][] probabilities = new double[data.size()][counts.length];
+
+    for (int i = 0; i < data.size(); i++) {
+
+      T datum = data.get(i);
+
+      Arrays.fill(counts, 0);
+
+      for (int m = 0; m < lfs.size(); m++) {
+
+        int label = lfs.get(m).apply(datum);
+
+        if (label > ABSTAIN) {
+          counts[label]++;
+        }
+      }
+
+      int max = Arrays.stream(counts).max().orElse(0);
+      long nbMax = Arrays.stream(counts).filter(count -> count == max).count();
+
+      for (int k = 0; k < counts.length; k++) {
+        probabilities[i][k] = counts[k] == max ? 1.0 / nbMax : 0.0;
+      }
+    }
+    return probabilities;
+  }
+
+  @Override
+  public int predictOne(T data) {
+
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
+    int[] instance = new int[lfs.size()];
+
+    for (int m = 0; m < lfs.size(); m++) {
+      instance[m] = lfs.get(m).apply(data);
+    }
+    return prediction(instance, 0, new int[lfLabels().size()], tieBreakPolicy_, tolerance_,
+        ThreadLocalRandom.current());
   }
 
   public eTieBreakPolicy tieBreakPolicy() {
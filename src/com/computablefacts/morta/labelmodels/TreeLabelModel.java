@@ -3,10 +3,13 @@ package com.computablefacts.morta.labelmodels;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.*;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -16,6 +19,7 @@ import com.computablefacts.morta.*;
 import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Table;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.errorprone.annotations.Var;
@@ -24,6 +28,10 @@ import com.google.errorprone.annotations.Var;
  * This model is especially good when the labeling functions are highly correlated. Each labeling
  * function is weighted according to the label class : true positive, false positive, true negative
  * or false negative. Each labeling function MUST output a value in {ABSTAIN, OK, KO}.
+ *
+ * The output of each labeling function on the gold labels is kept from one fit to the next. Thus,
+ * when new gold labels arrive, {@link #update(List)} applies the labeling functions to the new gold
+ * labels only.
  * 
  * @param <T> data type.
  */
@@ -33,8 +41,23 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
   private final eMetric metric_;
   private Aggregate<T> tree_;
 
+  // The gold labels seen so far : the i-th bit of actuals_ is set iff the i-th gold label is OK and
+  // the i-th bit of predictions_[m] is set iff the m-th labeling function outputs OK for it
+  private String label_;
+  private int nbGoldLabels_;
+  private BitSet actuals_;
+  private List<BitSet> predictions_;
+
   public TreeLabelModel(TreeLabelModel<T> labelModel) {
+
     this(labelModel.lfs(), labelModel.metric_, labelModel.tree_);
+
+    label_ = labelModel.label_;
+    nbGoldLabels_ = labelModel.nbGoldLabels_;
+    actuals_ = labelModel.actuals_ == null ? null : (BitSet) labelModel.actuals_.clone();
+    predictions_ = labelModel.predictions_ == null ? null
+        : labelModel.predictions_.stream().map(bitset -> (BitSet) bitset.clone())
+            .collect(Collectors.toList());
   }
 
   public TreeLabelModel(List<? extends AbstractLabelingFunction<T>> lfs, eMetric metric) {
@@ -126,30 +149,45 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
         goldLabels.stream().allMatch(gl -> gl.label().equals(goldLabels.get(0).label())),
         "gold labels must be identical");
 
-    List<Aggregate<T>> aggregates1 = lfs().stream().map(lf -> new SimpleAggregate<>(lf, goldLabels))
-        .collect(Collectors.toList());
-    List<Aggregate<T>> aggregates2 = newAggregate(aggregates1, aggregates1);
-    List<Aggregate<T>> aggregates3 = newAggregate(aggregates2, aggregates1);
-    List<Aggregate<T>> aggregates4 = newAggregate(aggregates2, aggregates2);
-    List<Aggregate<T>> aggregates5 = newAggregate(aggregates3, aggregates1);
-    List<Aggregate<T>> aggregates6 = newAggregate(aggregates3, aggregates2);
-    List<Aggregate<T>> aggregates7 = newAggregate(aggregates3, aggregates3);
+    label_ = goldLabels.isEmpty() ? null : goldLabels.get(0).label();
+    nbGoldLabels_ = 0;
+    actuals_ = new BitSet();
+    predictions_ = lfs().stream().map(lf -> new BitSet()).collect(Collectors.toList());
 
-    List<Aggregate<T>> aggregates = new ArrayList<>(aggregates1);
-    aggregates.addAll(aggregates2);
-    aggregates.addAll(aggregates3);
-    aggregates.addAll(aggregates4);
-    aggregates.addAll(aggregates5);
-    aggregates.addAll(aggregates6);
-    aggregates.addAll(aggregates7);
-    aggregates.sort(Comparator.comparingDouble((Aggregate<T> a) -> eMetric.MCC.equals(metric_)
-        ? a.confusionMatrix().matthewsCorrelationCoefficient()
-        : a.confusionMatrix().f1Score()).reversed());
+    add(goldLabels);
+    search();
+  }
 
-    if (!aggregates.isEmpty()) {
-      tree_ = aggregates.get(0);
-      tree_.reduce();
-    }
+  /**
+   * Refit the model after new gold labels have been added. The labeling functions are applied to
+   * the new gold labels only : their output on the gold labels seen by the previous calls to
+   * {@link #fit(List)} and {@link #update(List)} is reused.
+   *
+   * @param goldLabels the new gold labels.
+   */
+  public void update(List<IGoldLabel<T>> goldLabels) {
+
+    Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
+    Preconditions.checkState(actuals_ != null, "fit() should be called first");
+
+    String label = label_ == null && !goldLabels.isEmpty() ? goldLabels.get(0).label() : label_;
+
+    Preconditions.checkArgument(goldLabels.stream().allMatch(gl -> gl.label().equals(label)),
+        "gold labels must be identical");
+
+    label_ = label;
+
+    add(goldLabels);
+    search();
+  }
+
+  /**
+   * The number of gold labels the model has been trained on.
+   *
+   * @return the number of gold labels.
+   */
+  public int nbGoldLabels() {
+    return nbGoldLabels_;
   }
 
   /**
@@ -163,7 +201,47 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
     Preconditions.checkNotNull(data, "data should not be null");
 
-    return data.stream().map(this::predict).collect(Collectors.toList());
+    return data.stream().map(this::predictOne).collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterator<Integer> predict(Iterator<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    return Iterators.transform(data, this::predictOne);
+  }
+
+  @Override
+  public Stream<Integer> predict(Stream<T> data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+
+    return data.map(this::predictOne);
+  }
+
+  @Override
+  public int predictOne(T data) {
+
+    Preconditions.checkNotNull(data, "data should not be null");
+    Preconditions.checkState(tree_ != null, "tree should not be null");
+
+    return tree_.apply(data);
+  }
+
+  /**
+   * Predict the label of a data point from the outputs of the labeling functions on this data
+   * point. Only the outputs of the labeling functions used by the tree are requested.
+   *
+   * @param outputs a function returning the output of a given labeling function.
+   * @return a prediction.
+   */
+  public int predictOne(Function<AbstractLabelingFunction<T>, Integer> outputs) {
+
+    Preconditions.checkNotNull(outputs, "outputs should not be null");
+    Preconditions.checkState(tree_ != null, "tree should not be null");
+
+    return tree_.evaluate(outputs);
   }
 
   public eMetric metric() {
@@ -209,12 +287,58 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     return matrix;
   }
 
-  private int predict(T data) {
+  private void add(List<IGoldLabel<T>> goldLabels) {
 
-    Preconditions.checkNotNull(data, "data should not be null");
-    Preconditions.checkState(tree_ != null, "tree should not be null");
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
 
-    return tree_.apply(data);
+    for (int i = 0; i < goldLabels.size(); i++) {
+
+      IGoldLabel<T> goldLabel = goldLabels.get(i);
+      int index = nbGoldLabels_ + i;
+
+      if (label(goldLabel) == OK) {
+        actuals_.set(index);
+      }
+      for (int m = 0; m < lfs.size(); m++) {
+        if (lfs.get(m).apply(goldLabel.data()) == OK) {
+          predictions_.get(m).set(index);
+        }
+      }
+    }
+    nbGoldLabels_ += goldLabels.size();
+  }
+
+  private void search() {
+
+    List<? extends AbstractLabelingFunction<T>> lfs = lfs();
+    List<Aggregate<T>> aggregates1 = new ArrayList<>(lfs.size());
+
+    for (int m = 0; m < lfs.size(); m++) {
+      aggregates1.add(new SimpleAggregate<>(lfs.get(m), predictions_.get(m), actuals_,
+          nbGoldLabels_));
+    }
+
+    List<Aggregate<T>> aggregates2 = newAggregate(aggregates1, aggregates1);
+    List<Aggregate<T>> aggregates3 = newAggregate(aggregates2, aggregates1);
+    List<Aggregate<T>> aggregates4 = newAggregate(aggregates2, aggregates2);
+    List<Aggregate<T>> aggregates5 = newAggregate(aggregates3, aggregates1);
+    List<Aggregate<T>> aggregates6 = newAggregate(aggregates3, aggregates2);
+    List<Aggregate<T>> aggregates7 = newAggregate(aggregates3, aggregates3);
+
+    List<Aggregate<T>> aggregates = new ArrayList<>(aggregates1);
+    aggregates.addAll(aggregates2);
+    aggregates.addAll(aggregates3);
+    aggregates.addAll(aggregates4);
+    aggregates.addAll(aggregates5);
+    aggregates.addAll(aggregates6);
+    aggregates.addAll(aggregates7);
+    aggregates
+        .sort(Comparator.comparingDouble((Aggregate<T> aggregate) -> metric(aggregate)).reversed());
+
+    if (!aggregates.isEmpty()) {
+      tree_ = aggregates.get(0);
+      tree_.reduce();
+    }
   }
 
   private List<Aggregate<T>> newAggregate(List<Aggregate<T>> aggregates1,
@@ -228,109 +352,124 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     for (int i = 0; i < aggregates1.size(); i++) {
       for (int j = 0; j < aggregates2.size(); j++) {
 
-        double firstMetric = eMetric.MCC.equals(metric_)
-            ? aggregates1.get(i).confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregates1.get(i).confusionMatrix().f1Score();
-        double secondMetric = eMetric.MCC.equals(metric_)
-            ? aggregates2.get(j).confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregates2.get(j).confusionMatrix().f1Score();
+        Aggregate<T> aggregate1 = aggregates1.get(i);
+        Aggregate<T> aggregate2 = aggregates2.get(j);
+        double firstMetric = metric(aggregate1);
+        double secondMetric = metric(aggregate2);
 
         @Var
-        Aggregate<T> aggregate = new AndAggregate<>(aggregates1.get(i), aggregates2.get(j));
+        Aggregate<T> aggregate =
+            new AndAggregate<>(aggregate1, aggregate2, actuals_, nbGoldLabels_);
         @Var
-        double metric = eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score();
+        double metric = metric(aggregate);
 
         if (metric >= firstMetric || metric >= secondMetric) {
           aggregates.add(aggregate);
         }
 
-        aggregate = new OrAggregate<>(aggregates1.get(i), aggregates2.get(j));
-        metric = eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score();
+        aggregate = new OrAggregate<>(aggregate1, aggregate2, actuals_, nbGoldLabels_);
+        metric = metric(aggregate);
 
         if (metric >= firstMetric || metric >= secondMetric) {
           aggregates.add(aggregate);
         }
 
-        aggregate = new AndNotAggregate<>(aggregates1.get(i), aggregates2.get(j));
-        metric = eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score();
+        aggregate = new AndNotAggregate<>(aggregate1, aggregate2, actuals_, nbGoldLabels_);
+        metric = metric(aggregate);
 
         if (metric >= firstMetric || metric >= secondMetric) {
           aggregates.add(aggregate);
         }
 
-        aggregate = new AndNotAggregate<>(aggregates2.get(j), aggregates1.get(i));
-        metric = eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score();
+        aggregate = new AndNotAggregate<>(aggregate2, aggregate1, actuals_, nbGoldLabels_);
+        metric = metric(aggregate);
 
         if (metric >= firstMetric || metric >= secondMetric) {
           aggregates.add(aggregate);
         }
       }
     }
-    return aggregates.parallelStream()
-        .filter(aggregate -> Double.isFinite(eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score()))
-        .sorted(Comparator.comparingDouble((Aggregate<T> aggregate) -> eMetric.MCC.equals(metric_)
-            ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
-            : aggregate.confusionMatrix().f1Score()).reversed())
+    return aggregates.parallelStream().filter(aggregate -> Double.isFinite(metric(aggregate)))
+        .sorted(
+            Comparator.comparingDouble((Aggregate<T> aggregate) -> metric(aggregate)).reversed())
         .limit(100).collect(Collectors.toList());
   }
 
+  private double metric(Aggregate<T> aggregate) {
+    return eMetric.MCC.equals(metric_)
+        ? aggregate.confusionMatrix().matthewsCorrelationCoefficient()
+        : aggregate.confusionMatrix().f1Score();
+  }
+
+  /**
+   * Build a confusion matrix from the predictions made on a set of gold labels.
+   *
+   * @param actuals the i-th bit is set iff the i-th gold label is OK.
+   * @param predictions the i-th bit is set iff the prediction made for the i-th gold label is OK.
+   * @param nbGoldLabels the number of gold labels.
+   * @return a confusion matrix.
+   */
+  private static ConfusionMatrix confusionMatrix(BitSet actuals, BitSet predictions,
+      int nbGoldLabels) {
+
+    BitSet truePositives = (BitSet) predictions.clone();
+    truePositives.and(actuals);
+
+    int nbTruePositives = truePositives.cardinality();
+    int nbFalsePositives = predictions.cardinality() - nbTruePositives;
+    int nbFalseNegatives = actuals.cardinality() - nbTruePositives;
+
+    ConfusionMatrix matrix = new ConfusionMatrix();
+    matrix.addTruePositives(nbTruePositives);
+    matrix.addFalsePositives(nbFalsePositives);
+    matrix.addFalseNegatives(nbFalseNegatives);
+    matrix.addTrueNegatives(nbGoldLabels - nbTruePositives - nbFalsePositives - nbFalseNegatives);
+
+    return matrix;
+  }
+
   public enum eMetric {
     F1, MCC
   }
 
   private interface Aggregate<T> extends Function<T, Integer> {
 
-    List<Integer> actuals();
-
-    List<Integer> predictions();
+    /**
+     * The predictions made on the gold labels : the i-th bit is set iff the prediction associated
+     * with the i-th gold label is OK.
+     */
+    BitSet predictions();
 
     ConfusionMatrix confusionMatrix();
 
     void reduce();
+
+    /**
+     * Same as {@link #apply(Object)} but the outputs of the labeling functions are provided by the
+     * caller.
+     */
+    int evaluate(Function<AbstractLabelingFunction<T>, Integer> outputs);
   }
 
   private static final class OrAggregate<T> implements Aggregate<T> {
 
-    private final List<Integer> predictions_ = new ArrayList<>();
-    private final ConfusionMatrix confusionMatrix_ = new ConfusionMatrix();
+    private final ConfusionMatrix confusionMatrix_;
     private final Aggregate<T> aggregate1_;
     private final Aggregate<T> aggregate2_;
+    private BitSet predictions_;
 
-    public OrAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2) {
+    public OrAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2, BitSet actuals,
+        int nbGoldLabels) {
 
       Preconditions.checkNotNull(aggregate1, "aggregate1 should not be null");
       Preconditions.checkNotNull(aggregate2, "aggregate2 should not be null");
+      Preconditions.checkNotNull(actuals, "actuals should not be null");
 
       aggregate1_ = aggregate1;
       aggregate2_ = aggregate2;
-
-      Preconditions.checkState(aggregate1.actuals().size() == aggregate2.actuals().size());
-      Preconditions.checkState(aggregate1.predictions().size() == aggregate2.predictions().size());
-
-      for (int i = 0; i < aggregate1.actuals().size(); i++) {
-
-        int actual1 = aggregate1.actuals().get(i);
-        int actual2 = aggregate2.actuals().get(i);
-
-        Preconditions.checkState(actual1 == actual2);
-
-        int prediction1 = aggregate1.predictions().get(i);
-        int prediction2 = aggregate2.predictions().get(i);
-
-        predictions_.add(reduce(prediction1, prediction2));
-      }
-
-      confusionMatrix_.addAll(aggregate1.actuals(), predictions_, OK, KO);
+      predictions_ = (BitSet) aggregate1.predictions().clone();
+      predictions_.or(aggregate2.predictions());
+      confusionMatrix_ = TreeLabelModel.confusionMatrix(actuals, predictions_, nbGoldLabels);
     }
 
     @Override
@@ -339,12 +478,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     }
 
     @Override
-    public List<Integer> actuals() {
-      return aggregate1_.actuals();
-    }
-
-    @Override
-    public List<Integer> predictions() {
+    public BitSet predictions() {
       return predictions_;
     }
 
@@ -355,7 +489,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
     @Override
     public void reduce() {
-      predictions_.clear();
+      predictions_ = null;
       aggregate1_.reduce();
       aggregate2_.reduce();
     }
@@ -369,6 +503,15 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
       return reduce(prediction1, prediction2);
     }
 
+    @Override
+    public int evaluate(Function<AbstractLabelingFunction<T>, Integer> outputs) {
+
+      int prediction1 = aggregate1_.evaluate(outputs);
+      int prediction2 = aggregate2_.evaluate(outputs);
+
+      return reduce(prediction1, prediction2);
+    }
+
     private int reduce(int prediction1, int prediction2) {
       return prediction1 == OK || prediction2 == OK ? OK : KO;
     }
@@ -376,36 +519,23 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
   private static final class AndAggregate<T> implements Aggregate<T> {
 
-    private final List<Integer> predictions_ = new ArrayList<>();
-    private final ConfusionMatrix confusionMatrix_ = new ConfusionMatrix();
+    private final ConfusionMatrix confusionMatrix_;
     private final Aggregate<T> aggregate1_;
     private final Aggregate<T> aggregate2_;
+    private BitSet predictions_;
 
-    public AndAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2) {
+    public AndAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2, BitSet actuals,
+        int nbGoldLabels) {
 
       Preconditions.checkNotNull(aggregate1, "aggregate1 should not be null");
       Preconditions.checkNotNull(aggregate2, "aggregate2 should not be null");
+      Preconditions.checkNotNull(actuals, "actuals should not be null");
 
       aggregate1_ = aggregate1;
       aggregate2_ = aggregate2;
-
-      Preconditions.checkState(aggregate1.actuals().size() == aggregate2.actuals().size());
-      Preconditions.checkState(aggregate1.predictions().size() == aggregate2.predictions().size());
-
-      for (int i = 0; i < aggregate1.actuals().size(); i++) {
-
-        int actual1 = aggregate1.actuals().get(i);
-        int actual2 = aggregate2.actuals().get(i);
-
-        Preconditions.checkState(actual1 == actual2);
-
-        int prediction1 = aggregate1.predictions().get(i);
-        int prediction2 = aggregate2.predictions().get(i);
-
-        predictions_.add(reduce(prediction1, prediction2));
-      }
-
-      confusionMatrix_.addAll(aggregate1.actuals(), predictions_, OK, KO);
+      predictions_ = (BitSet) aggregate1.predictions().clone();
+      predictions_.and(aggregate2.predictions());
+      confusionMatrix_ = TreeLabelModel.confusionMatrix(actuals, predictions_, nbGoldLabels);
     }
 
     @Override
@@ -414,12 +544,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     }
 
     @Override
-    public List<Integer> actuals() {
-      return aggregate1_.actuals();
-    }
-
-    @Override
-    public List<Integer> predictions() {
+    public BitSet predictions() {
       return predictions_;
     }
 
@@ -430,7 +555,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
     @Override
     public void reduce() {
-      predictions_.clear();
+      predictions_ = null;
       aggregate1_.reduce();
       aggregate2_.reduce();
     }
@@ -444,6 +569,15 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
       return reduce(prediction1, prediction2);
     }
 
+    @Override
+    public int evaluate(Function<AbstractLabelingFunction<T>, Integer> outputs) {
+
+      int prediction1 = aggregate1_.evaluate(outputs);
+      int prediction2 = aggregate2_.evaluate(outputs);
+
+      return reduce(prediction1, prediction2);
+    }
+
     private int reduce(int prediction1, int prediction2) {
       return prediction1 == OK && prediction2 == OK ? OK : KO;
     }
@@ -451,36 +585,25 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
   private static final class AndNotAggregate<T> implements Aggregate<T> {
 
-    private final List<Integer> predictions_ = new ArrayList<>();
-    private final ConfusionMatrix confusionMatrix_ = new ConfusionMatrix();
+    private final ConfusionMatrix confusionMatrix_;
     private final Aggregate<T> aggregate1_;
     private final Aggregate<T> aggregate2_;
+    private BitSet predictions_;
 
-    public AndNotAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2) {
+    public AndNotAggregate(Aggregate<T> aggregate1, Aggregate<T> aggregate2, BitSet actuals,
+        int nbGoldLabels) {
 
       Preconditions.checkNotNull(aggregate1, "aggregate1 should not be null");
       Preconditions.checkNotNull(aggregate2, "aggregate2 should not be null");
+      Preconditions.checkNotNull(actuals, "actuals should not be null");
 
       aggregate1_ = aggregate1;
       aggregate2_ = aggregate2;
 
-      Preconditions.checkState(aggregate1.actuals().size() == aggregate2.actuals().size());
-      Preconditions.checkState(aggregate1.predictions().size() == aggregate2.predictions().size());
-
-      for (int i = 0; i < aggregate1.actuals().size(); i++) {
-
-        int actual1 = aggregate1.actuals().get(i);
-        int actual2 = aggregate2.actuals().get(i);
-
-        Preconditions.checkState(actual1 == actual2);
-
-        int prediction1 = aggregate1.predictions().get(i);
-        int prediction2 = aggregate2.predictions().get(i);
-
-        predictions_.add(reduce(prediction1, prediction2));
-      }
-
-      confusionMatrix_.addAll(aggregate1.actuals(), predictions_, OK, KO);
+      // The predictions of an aggregate are either OK or KO i.e. never ABSTAIN
+      predictions_ = (BitSet) aggregate1.predictions().clone();
+      predictions_.andNot(aggregate2.predictions());
+      confusionMatrix_ = TreeLabelModel.confusionMatrix(actuals, predictions_, nbGoldLabels);
     }
 
     @Override
@@ -489,12 +612,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     }
 
     @Override
-    public List<Integer> actuals() {
-      return aggregate1_.actuals();
-    }
-
-    @Override
-    public List<Integer> predictions() {
+    public BitSet predictions() {
       return predictions_;
     }
 
@@ -505,7 +623,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
     @Override
     public void reduce() {
-      predictions_.clear();
+      predictions_ = null;
       aggregate1_.reduce();
       aggregate2_.reduce();
     }
@@ -519,6 +637,15 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
       return reduce(prediction1, prediction2);
     }
 
+    @Override
+    public int evaluate(Function<AbstractLabelingFunction<T>, Integer> outputs) {
+
+      int prediction1 = aggregate1_.evaluate(outputs);
+      int prediction2 = aggregate2_.evaluate(outputs);
+
+      return reduce(prediction1, prediction2);
+    }
+
     private int reduce(int prediction1, int prediction2) {
       return prediction1 == OK && (prediction2 == KO || prediction2 == ABSTAIN) ? OK : KO;
     }
@@ -527,28 +654,19 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
   private static final class SimpleAggregate<T> implements Aggregate<T> {
 
     private final AbstractLabelingFunction<T> labelingFunction_;
-    private final List<Integer> actuals_ = new ArrayList<>();
-    private final List<Integer> predictions_ = new ArrayList<>();
-    private final ConfusionMatrix confusionMatrix_ = new ConfusionMatrix();
+    private final ConfusionMatrix confusionMatrix_;
+    private BitSet predictions_;
 
-    public SimpleAggregate(AbstractLabelingFunction<T> labelingFunction,
-        List<? extends IGoldLabel<T>> goldLabels) {
+    public SimpleAggregate(AbstractLabelingFunction<T> labelingFunction, BitSet predictions,
+        BitSet actuals, int nbGoldLabels) {
 
       Preconditions.checkNotNull(labelingFunction, "labelingFunction should not be null");
-      Preconditions.checkNotNull(goldLabels, "goldLabels should not be null");
+      Preconditions.checkNotNull(predictions, "predictions should not be null");
+      Preconditions.checkNotNull(actuals, "actuals should not be null");
 
       labelingFunction_ = labelingFunction;
-
-      goldLabels.forEach(goldLabel -> {
-
-        int actual = label(goldLabel);
-        int prediction = apply(goldLabel.data());
-
-        actuals_.add(actual);
-        predictions_.add(prediction);
-      });
-
-      confusionMatrix_.addAll(actuals_, predictions_, OK, KO);
+      predictions_ = predictions;
+      confusionMatrix_ = TreeLabelModel.confusionMatrix(actuals, predictions_, nbGoldLabels);
     }
 
     @Override
@@ -557,12 +675,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
     }
 
     @Override
-    public List<Integer> actuals() {
-      return actuals_;
-    }
-
-    @Override
-    public List<Integer> predictions() {
+    public BitSet predictions() {
       return predictions_;
     }
 
@@ -573,8 +686,7 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
 
     @Override
     public void reduce() {
-      predictions_.clear();
-      actuals_.clear();
+      predictions_ = null; // the predictions are owned by the label model
     }
 
     @Override
@@ -582,5 +694,11 @@ final public class TreeLabelModel<T> extends AbstractLabelModel<T> {
       int prediction = labelingFunction_.apply(input);
       return prediction == OK ? OK : KO;
     }
+
+    @Override
+    public int evaluate(Function<AbstractLabelingFunction<T>, Integer> outputs) {
+      int prediction = outputs.apply(labelingFunction_);
+      return prediction == OK ? OK : KO;
+    }
   }
 }
@@ -11,6 +11,8 @@ import com.google.errorprone.annotations.Var;
 @CheckReturnValue
 public class FingerPrint extends Hashtable<String, Integer> {
 
+  public static final int DEFAULT_PROFILE_SIZE = 5000;
+
   private final NavigableSet<Map.Entry<String, Integer>> entries_ =
       new TreeSet<>(new NGramEntryComparator());
   private final Map<String, Integer> categoryDistances_ = new HashMap<>();
@@ -90,6 +92,51 @@ public class FingerPrint extends Hashtable<String, Integer> {
     entries_.addAll(this.entrySet());
   }
 
+  /**
+   * Creates a {@link FingerPrint} object from a stream of texts.
+   * <p>
+   * Unlike {@link #create(String)}, texts are processed one at a time and the n-grams are counted
+   * using a space-bounded heavy-hitters sketch. Only the {@code profileSize} most frequent n-grams
+   * are kept. Thus, memory usage does not grow with the size of the corpus.
+   *
+   * @param texts       the texts upon which the fingerprint should be built.
+   * @param profileSize the maximum number of n-grams to keep.
+   */
+  public void create(Iterator<String> texts, int profileSize) {
+
+    Preconditions.checkNotNull(texts, "texts should not be null");
+    Preconditions.checkArgument(profileSize > 0, "profileSize must be > 0");
+
+    this.clear();
+    entries_.clear();
+
+    SpaceSaving sketch = new SpaceSaving(10 * profileSize);
+
+    while (texts.hasNext()) {
+
+      String text = texts.next();
+
+      if (text != null) {
+
+        Map<String, Integer> counts = new HashMap<>();
+
+        Arrays.stream(ngrams(5, text))
+            .forEach(m -> m.entrySet().forEach(e -> counts.put(e.getElement(), e.getCount())));
+
+        counts.forEach(sketch::add);
+      }
+    }
+
+    sketch.top(profileSize).forEach(e -> this.put(e.getKey(), e.getValue()));
+
+    if (this.containsKey("_")) {
+      int blanksScore = this.remove("_");
+      this.put("_", blanksScore / 2);
+    }
+
+    entries_.addAll(this.entrySet());
+  }
+
   /**
    * Computes the distance between the current fingerprint and a given fingerprint.
    *
@@ -0,0 +1,115 @@
+package com.computablefacts.morta.textcat;
+
+import java.util.*;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.CheckReturnValue;
+
+/**
+ * Space-bounded heavy-hitters sketch using the Space-Saving algorithm (Metwally, Agrawal and El
+ * Abbadi, 2005).
+ *
+ * At most {@code capacity} counters are kept in memory. When a new element arrives and all counters
+ * are in use, the element with the lowest count is evicted and the new element inherits its count.
+ * Thus, any element whose true frequency exceeds {@code total / capacity} is guaranteed to be
+ * tracked.
+ */
+@NotThreadSafe
+@CheckReturnValue
+final class SpaceSaving {
+
+  private final int capacity_;
+  private final Map<String, Counter> counters_ = new HashMap<>();
+  private final NavigableSet<Counter> ordered_ = new TreeSet<>(new CounterComparator());
+
+  SpaceSaving(int capacity) {
+
+    Preconditions.checkArgument(capacity > 0, "capacity must be > 0");
+
+    capacity_ = capacity;
+  }
+
+  int size() {
+    return counters_.size();
+  }
+
+  /**
+   * Increment the count associated with a given element.
+   *
+   * @param element the element.
+   * @param count   the increment.
+   */
+  void add(String element, int count) {
+
+    Preconditions.checkNotNull(element, "element should not be null");
+    Preconditions.checkArgument(count > 0, "count must be > 0");
+
+    Counter counter = counters_.get(element);
+
+    if (counter != null) {
+      ordered_.remove(counter);
+      counter.count_ += count;
+      ordered_.add(counter);
+      return;
+    }
+    if (counters_.size() < capacity_) {
+      Counter newCounter = new Counter(element, count);
+      counters_.put(element, newCounter);
+      ordered_.add(newCounter);
+      return;
+    }
+
+    // Evict the element with the lowest count and reuse its counter
+    Counter min = ordered_.pollFirst();
+    counters_.remove(min.element_);
+
+    Counter newCounter = new Counter(element, min.count_ + count);
+    counters_.put(element, newCounter);
+    ordered_.add(newCounter);
+  }
+
+  /**
+   * Returns the {@code k} most frequent elements in decreasing order of (estimated) frequency.
+   *
+   * @param k the number of elements to return.
+   * @return a list of (element, count) pairs.
+   */
+  List<Map.Entry<String, Integer>> top(int k) {
+
+    Preconditions.checkArgument(k > 0, "k must be > 0");
+
+    List<Map.Entry<String, Integer>> top = new ArrayList<>(Math.min(k, counters_.size()));
+    Iterator<Counter> iterator = ordered_.descendingIterator();
+
+    while (iterator.hasNext() && top.size() < k) {
+      Counter counter = iterator.next();
+      top.add(new AbstractMap.SimpleImmutableEntry<>(counter.element_, counter.count_));
+    }
+    return top;
+  }
+
+  private final static class Counter {
+
+    private final String element_;
+    private int count_;
+
+    Counter(String element, int count) {
+      element_ = element;
+      count_ = count;
+    }
+  }
+
+  private final static class CounterComparator implements Comparator<Counter> {
+
+    CounterComparator() {}
+
+    public int compare(Counter c1, Counter c2) {
+      if (c1.count_ != c2.count_) {
+        return Integer.compare(c1.count_, c2.count_);
+      }
+      return c1.element_.compareTo(c2.element_);
+    }
+  }
+}
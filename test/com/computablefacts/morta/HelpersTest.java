@@ -0,0 +1,130 @@
+package com.computablefacts.morta;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.asterix.SnippetExtractor;
+import com.computablefacts.asterix.Span;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+import com.computablefacts.morta.labelingfunctions.MatchRegexLabelingFunction;
+
+public class HelpersTest {
+
+  private static final String FACT =
+      "the buyer signed the purchase agreement on behalf of the company";
+
+  @Test
+  public void testSpansAreDistinctAndOrderedByPosition() {
+
+    String text = "agreement : the buyer signed the purchase agreement";
+    List<Span> spans = Helpers.spans(lfs(), text);
+
+    Assert.assertEquals(Arrays.asList("agreement", "buyer", "purchase agreement", "agreement"),
+        spans.stream().map(Span::text).collect(Collectors.toList()));
+    Assert.assertEquals(Arrays.asList(0, 16, 33, 42),
+        spans.stream().map(Span::begin).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testMergeSpans() {
+
+    String text = "abcdef";
+    List<Span> spans = Helpers.spans(Stream.of(
+        Arrays.asList(new Span(text, 2, 4), new Span(text, 0, 3)),
+        Arrays.asList(new Span(text, 0, 2), new Span(text, 2, 4), new Span(text, 0, 3))));
+
+    Assert.assertEquals(Arrays.asList("ab", "abc", "cd"),
+        spans.stream().map(Span::text).collect(Collectors.toList()));
+    Assert.assertTrue(Helpers.spans(Stream.empty()).isEmpty());
+  }
+
+  @Test
+  public void testKeywordsAreDistinctAndOrderedByFirstOccurrence() {
+
+    String text = "agreement : the buyer signed the purchase agreement";
+
+    Assert.assertEquals(Arrays.asList("agreement", "buyer", "purchase agreement"),
+        Helpers.keywords(lfs(), text));
+    Assert.assertEquals(Helpers.keywords(lfs(), text),
+        Helpers.keywords(Helpers.spans(lfs(), text)));
+    Assert.assertTrue(Helpers.keywords(Collections.emptyList()).isEmpty());
+  }
+
+  @Test
+  public void testMatchRegexLabelingFunctionSpans() {
+
+    String text = "Buyer and buyer";
+    List<Span> spans = new MatchRegexLabelingFunction("[bB]uyer", true, 1.0).spans(text);
+
+    Assert.assertEquals(Arrays.asList("Buyer", "buyer"),
+        spans.stream().map(Span::text).collect(Collectors.toList()));
+    Assert.assertEquals(Arrays.asList(0, 10),
+        spans.stream().map(Span::begin).collect(Collectors.toList()));
+    Assert.assertEquals(Arrays.asList(5, 15),
+        spans.stream().map(Span::end).collect(Collectors.toList()));
+    Assert.assertTrue(new MatchRegexLabelingFunction("seller", true, 1.0).spans(text).isEmpty());
+  }
+
+  @Test
+  public void testMatchRegexLabelingFunctionOutputIsConsistentWithApply() {
+
+    MatchRegexLabelingFunction lf = new MatchRegexLabelingFunction("buyer", true, 1.0);
+
+    Assert.assertEquals(Optional.of(AbstractLabelingFunction.OK),
+        lf.output(lf.spans("the buyer")));
+    Assert.assertEquals(Optional.of(AbstractLabelingFunction.ABSTAIN),
+        lf.output(Collections.emptyList()));
+
+    for (String text : Arrays.asList("the buyer", "the Buyer", "the seller", "")) {
+      Assert.assertEquals(Optional.of(lf.apply(text)), lf.output(lf.spans(text)));
+    }
+  }
+
+  @Test
+  public void testSnippetOfShortTextMatchesSnippetExtractor() {
+    assertSnippetsAreEqual(FACT, 300, 50);
+  }
+
+  @Test
+  public void testSnippetOfLongTextMatchesSnippetExtractor() {
+
+    StringBuilder builder = new StringBuilder();
+
+    for (int i = 0; i < 50; i++) {
+      builder.append("lorem ipsum dolor sit amet ");
+    }
+
+    String text = builder + FACT + " " + builder + FACT + " " + builder;
+
+    assertSnippetsAreEqual(text, 300, 50);
+    assertSnippetsAreEqual(text, 100, 10);
+    assertSnippetsAreEqual(text, 50, 0);
+    assertSnippetsAreEqual(FACT + " " + builder, 300, 50);
+    assertSnippetsAreEqual(builder + FACT, 300, 50);
+  }
+
+  private static void assertSnippetsAreEqual(String text, int relLength, int prevCount) {
+
+    List<AbstractLabelingFunction<String>> lfs = lfs();
+    String expected =
+        SnippetExtractor.extract(Helpers.keywords(lfs, text), text, relLength, prevCount, "...");
+    String actual = Helpers.snippet(Helpers.spans(lfs, text), text, relLength, prevCount, "...");
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  // Overlapping ("agreement" and "purchase agreement") and duplicate ("buyer") matches
+  private static List<AbstractLabelingFunction<String>> lfs() {
+    return Arrays.asList(new MatchRegexLabelingFunction("purchase agreement", true, 1.0),
+        new MatchRegexLabelingFunction("agreement", true, 1.0),
+        new MatchRegexLabelingFunction("buyer", true, 1.0),
+        new MatchRegexLabelingFunction("[bB]uyer", true, 1.0));
+  }
+}
@@ -0,0 +1,90 @@
+package com.computablefacts.morta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ObservationsTest {
+
+  @Test
+  public void testChildBuffersUntilFlushed() throws IOException {
+
+    File file = Files.createTempFile("observations-", ".txt").toFile();
+    Assert.assertTrue(file.delete());
+
+    Observations observations = new Observations(file);
+    Observations child = observations.child();
+    PrintStream out = System.out;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try {
+      System.setOut(new PrintStream(bytes, true, "UTF-8"));
+
+      for (int i = 0; i < 60; i++) { // more than the parent auto-flush threshold
+        child.add("message " + i);
+      }
+    } finally {
+      System.setOut(out);
+    }
+
+    Assert.assertEquals("", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertFalse(file.exists());
+
+    child.flush();
+    observations.flush();
+
+    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+    Assert.assertEquals(62, lines.size());
+    Assert.assertEquals("message 0", lines.get(0));
+    Assert.assertEquals("message 59", lines.get(59));
+    Assert.assertTrue(lines.get(60).startsWith("Elapsed time"));
+    Assert.assertTrue(lines.get(61).startsWith("Elapsed time"));
+  }
+
+  @Test
+  public void testChildrenAreMergedInFlushOrder() throws IOException {
+
+    File file = Files.createTempFile("observations-", ".txt").toFile();
+    Assert.assertTrue(file.delete());
+
+    Observations observations = new Observations(file);
+    Observations child1 = observations.child();
+    Observations child2 = observations.child();
+
+    // Interleaved messages
+    child1.add("label 1 : message 1");
+    child2.add("label 2 : message 1");
+    child1.add("label 1 : message 2");
+    child2.add("label 2 : message 2");
+
+    child2.flush();
+    child1.flush();
+    child1.flush(); // flushing twice does not duplicate messages
+    observations.flush();
+
+    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+    Assert.assertEquals(Arrays.asList("label 2 : message 1", "label 2 : message 2",
+        "label 1 : message 1", "label 1 : message 2"), messages(lines));
+    Assert.assertEquals(8, lines.size());
+    Assert.assertTrue(lines.get(2).startsWith("Elapsed time"));
+    Assert.assertTrue(lines.get(5).startsWith("Elapsed time"));
+    Assert.assertTrue(lines.get(6).startsWith("Elapsed time"));
+    Assert.assertTrue(lines.get(7).startsWith("Elapsed time"));
+  }
+
+  private static List<String> messages(List<String> lines) {
+    return lines.stream().filter(line -> !line.startsWith("Elapsed time"))
+        .collect(Collectors.toList());
+  }
+}
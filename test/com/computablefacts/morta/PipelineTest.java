@@ -0,0 +1,55 @@
+package com.computablefacts.morta;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PipelineTest {
+
+  @Test
+  public void testIndependentStagesRunConcurrently() {
+
+    CountDownLatch latch = new CountDownLatch(2);
+
+    try (Pipeline pipeline = new Pipeline(2)) {
+
+      // Each stage waits for the other one : the pipeline completes iif both run concurrently
+      Pipeline.Stage<Integer> a = pipeline.stage("a", () -> await(latch, 1));
+      Pipeline.Stage<Integer> b = pipeline.stage("b", () -> await(latch, 2));
+      Pipeline.Stage<Integer> c = pipeline.stage("c", () -> a.get() + b.get(), a, b);
+
+      Assert.assertEquals(3, (int) c.get());
+    }
+  }
+
+  @Test
+  public void testFailurePropagatesToDependentStages() {
+
+    try (Pipeline pipeline = new Pipeline(1)) {
+
+      Pipeline.Stage<Integer> a = pipeline.stage("a", () -> {
+        throw new IllegalArgumentException("a failed");
+      });
+      Pipeline.Stage<Integer> b = pipeline.stage("b", () -> a.get() + 1, a);
+
+      try {
+        int unused = b.get();
+        Assert.fail();
+      } catch (IllegalStateException e) {
+        Assert.assertEquals("a failed", e.getCause().getMessage());
+      }
+    }
+  }
+
+  private static int await(CountDownLatch latch, int value) {
+    try {
+      latch.countDown();
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+      return value;
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
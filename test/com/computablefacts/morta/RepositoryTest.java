@@ -0,0 +1,249 @@
+package com.computablefacts.morta;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.asterix.ConfusionMatrix;
+import com.computablefacts.morta.classifiers.AbstractClassifier;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+import com.computablefacts.morta.labelmodels.AbstractLabelModel;
+import com.computablefacts.morta.labelmodels.TreeLabelModel;
+
+public class RepositoryTest {
+
+  private static final String LABEL = "purchase";
+  private static final String[] WORDS = {"board", "meeting", "report", "annual", "company",
+      "market", "revenue", "growth", "quarter", "results", "director", "office", "budget"};
+
+  @Test
+  public void testChangingAParameterOnlyInvalidatesDownstreamArtifacts() throws IOException {
+
+    File dir = repository();
+    Repository repository = new Repository(dir.getAbsolutePath(), 1);
+    Assert.assertEquals(1, repository.init(null, null, false, false).size());
+
+    train(repository, 5);
+
+    String alphabetKey = key(dir, "alphabet");
+    String labelingFunctionsKey = key(dir, "labeling_functions");
+    String labelModelKey = key(dir, "label_model");
+    String classifierKey = key(dir, "classifier");
+
+    train(repository, 5);
+
+    Assert.assertEquals(labelingFunctionsKey, key(dir, "labeling_functions"));
+    Assert.assertEquals(labelModelKey, key(dir, "label_model"));
+    Assert.assertEquals(classifierKey, key(dir, "classifier"));
+
+    // Tamper with the alphabet : it is reused iif the tampered alphabet is returned
+    Dictionary alphabet = repository.alphabet(LABEL);
+    alphabet.put("__tampered__", alphabet.size());
+    Helpers.serialize(new File(dir, LABEL + "_alphabet.xml.gz").getAbsolutePath(), alphabet);
+
+    train(repository, 3);
+
+    Assert.assertTrue(repository.alphabet(LABEL).containsKey("__tampered__"));
+    Assert.assertEquals(alphabetKey, key(dir, "alphabet"));
+    Assert.assertNotEquals(labelingFunctionsKey, key(dir, "labeling_functions"));
+    Assert.assertNotEquals(labelModelKey, key(dir, "label_model"));
+    Assert.assertNotEquals(classifierKey, key(dir, "classifier"));
+  }
+
+  @Test
+  public void testMissingOrMismatchedKeyForcesRecompute() throws IOException {
+
+    File dir = repository();
+    Repository repository = new Repository(dir.getAbsolutePath(), 1);
+    Assert.assertEquals(1, repository.init(null, null, false, false).size());
+
+    Dictionary alphabet = repository.alphabet(LABEL);
+    String alphabetKey = key(dir, "alphabet");
+    File fileAlphabet = new File(dir, LABEL + "_alphabet.xml.gz");
+    File fileKey = new File(fileAlphabet.getAbsolutePath() + ".key");
+
+    Dictionary tampered = repository.alphabet(LABEL);
+    tampered.put("__tampered__", tampered.size());
+    Helpers.serialize(fileAlphabet.getAbsolutePath(), tampered);
+
+    Assert.assertTrue(repository.alphabet(LABEL).containsKey("__tampered__"));
+
+    // Mismatched key
+    Files.write(fileKey.toPath(), "mismatch".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertEquals(alphabet, repository.alphabet(LABEL));
+    Assert.assertEquals(alphabetKey, key(dir, "alphabet"));
+
+    // Missing key
+    Helpers.serialize(fileAlphabet.getAbsolutePath(), tampered);
+    Assert.assertTrue(fileKey.delete());
+
+    Assert.assertEquals(alphabet, repository.alphabet(LABEL));
+    Assert.assertEquals(alphabetKey, key(dir, "alphabet"));
+  }
+
+  @Test
+  public void testEvaluateMatchesPerGoldLabelConfusionMatrices() throws IOException {
+
+    File dir = repository();
+    Repository repository = new Repository(dir.getAbsolutePath(), 1);
+    Assert.assertEquals(1, repository.init(null, null, false, false).size());
+
+    Dictionary alphabet = repository.alphabet(LABEL);
+    AbstractLabelModel<String> labelModel = repository.labelModel(LABEL,
+        repository.labelingFunctions(LABEL, 10, 5), TreeLabelModel.eMetric.MCC);
+    AbstractClassifier classifier = repository.classifier(LABEL, alphabet, labelModel,
+        Repository.eClassifier.ONLINE_LOGIT);
+
+    Map.Entry<ConfusionMatrix, ConfusionMatrix> matrices =
+        repository.evaluate(LABEL, alphabet, labelModel, classifier);
+
+    List<IGoldLabel<String>> goldLabels = new ArrayList<>(repository.pagesAsGoldLabels(LABEL));
+    ConfusionMatrix labelModelMatrix = IGoldLabel.confusionMatrix(goldLabels.stream()
+        .map(goldLabel -> repository.newGoldLabel(goldLabel,
+            labelModel.predictOne(goldLabel.data())))
+        .collect(Collectors.toList()));
+    ConfusionMatrix classifierMatrix = IGoldLabel.confusionMatrix(goldLabels.stream()
+        .map(goldLabel -> repository.newGoldLabel(goldLabel,
+            repository.predict(alphabet, classifier, goldLabel.data())))
+        .collect(Collectors.toList()));
+
+    assertEquals(labelModelMatrix, matrices.getKey());
+    assertEquals(classifierMatrix, matrices.getValue());
+
+    // Some gold labels are mislabeled : errors must be counted too
+    Assert.assertTrue(
+        labelModelMatrix.nbFalsePositives() + labelModelMatrix.nbFalseNegatives() > 0);
+  }
+
+  @Test
+  public void testRefittedLabelModelOrEditedAlphabetInvalidatesTheClassifier() throws IOException {
+
+    File dir = repository();
+    Repository repository = new Repository(dir.getAbsolutePath(), 1);
+    Assert.assertEquals(1, repository.init(null, null, false, false).size());
+
+    Dictionary alphabet = repository.alphabet(LABEL);
+    TreeLabelModel<String> labelModel = (TreeLabelModel<String>) repository.labelModel(LABEL,
+        repository.labelingFunctions(LABEL, 10, 5), TreeLabelModel.eMetric.MCC);
+
+    classifier(repository, alphabet, labelModel);
+    String classifierKey = key(dir, "classifier");
+
+    classifier(repository, alphabet, labelModel);
+    Assert.assertEquals(classifierKey, key(dir, "classifier"));
+
+    // An edited alphabet of the same size
+    Dictionary edited = new Dictionary();
+    alphabet.forEach((feature, id) -> edited.put(id == 0 ? "__edited__" : feature, id));
+
+    Assert.assertEquals(alphabet.size(), edited.size());
+
+    classifier(repository, edited, labelModel);
+    Assert.assertNotEquals(classifierKey, key(dir, "classifier"));
+
+    classifier(repository, alphabet, labelModel);
+    Assert.assertEquals(classifierKey, key(dir, "classifier"));
+
+    // A label model refitted in memory i.e. without being checkpointed
+    List<String> pages = repository.pagesAsGoldLabels(LABEL).stream().map(IGoldLabel::data)
+        .collect(Collectors.toList());
+    List<Integer> predictions = labelModel.predict(pages);
+    List<IGoldLabel<String>> flipped = repository.pagesAsGoldLabels(LABEL).stream()
+        .map(goldLabel -> new GoldLabelOfString(goldLabel.id(), goldLabel.label(),
+            goldLabel.data(), goldLabel.isTruePositive(), goldLabel.isTrueNegative(), false,
+            false))
+        .collect(Collectors.toList());
+
+    for (int i = 0; i < 3; i++) {
+      labelModel.update(flipped);
+    }
+
+    Assert.assertNotEquals(predictions, labelModel.predict(pages));
+
+    classifier(repository, alphabet, labelModel);
+    Assert.assertNotEquals(classifierKey, key(dir, "classifier"));
+  }
+
+  private static void assertEquals(ConfusionMatrix expected, ConfusionMatrix actual) {
+    Assert.assertEquals(expected.nbTruePositives(), actual.nbTruePositives());
+    Assert.assertEquals(expected.nbTrueNegatives(), actual.nbTrueNegatives());
+    Assert.assertEquals(expected.nbFalsePositives(), actual.nbFalsePositives());
+    Assert.assertEquals(expected.nbFalseNegatives(), actual.nbFalseNegatives());
+  }
+
+  private static File repository() throws IOException {
+
+    File dir = Files.createTempDirectory("repository-").toFile();
+    Random random = new Random(42);
+    List<IGoldLabel<String>> pages = new ArrayList<>();
+    List<IGoldLabel<String>> facts = new ArrayList<>();
+
+    for (int i = 0; i < 40; i++) {
+
+      // Mislabel a few pages
+      boolean hasFact = i % 2 == 0;
+      boolean isOk = hasFact ^ i % 9 == 4;
+      String fact = i % 4 == 0 ? "the buyer signed the purchase agreement"
+          : "the purchase order has been approved";
+      String page = hasFact ? words(random, 20) + " " + fact + " " + words(random, 20)
+          : words(random, 40);
+
+      pages.add(new GoldLabelOfString(Integer.toString(i, 10), LABEL, page, !isOk, isOk, false,
+          false));
+
+      if (isOk) {
+        facts.add(new GoldLabelOfString(Integer.toString(i, 10), LABEL, fact, false, true, false,
+            false));
+      }
+    }
+
+    Assert.assertTrue(
+        GoldLabelOfString.save(new File(dir, "pages_as_gold_labels.jsonl.gz"), pages));
+    Assert.assertTrue(
+        GoldLabelOfString.save(new File(dir, "facts_as_gold_labels.jsonl.gz"), facts));
+    return dir;
+  }
+
+  private static void train(Repository repository, int nbLabelsToReturn) {
+
+    Dictionary alphabet = repository.alphabet(LABEL);
+    List<AbstractLabelingFunction<String>> lfs =
+        repository.labelingFunctions(LABEL, 10, nbLabelsToReturn);
+    AbstractLabelModel<String> labelModel =
+        repository.labelModel(LABEL, lfs, TreeLabelModel.eMetric.MCC);
+
+    Assert.assertNotNull(repository.classifier(LABEL, alphabet, labelModel,
+        Repository.eClassifier.ONLINE_LOGIT));
+  }
+
+  private static void classifier(Repository repository, Dictionary alphabet,
+      AbstractLabelModel<String> labelModel) {
+    Assert.assertNotNull(repository.classifier(LABEL, alphabet, labelModel,
+        Repository.eClassifier.ONLINE_LOGIT));
+  }
+
+  private static String key(File dir, String artifact) throws IOException {
+    return new String(Files.readAllBytes(new File(dir, LABEL + "_" + artifact + ".xml.gz.key")
+        .toPath()), StandardCharsets.UTF_8).trim();
+  }
+
+  private static String words(Random random, int nbWords) {
+
+    StringBuilder builder = new StringBuilder();
+
+    for (int i = 0; i < nbWords; i++) {
+      builder.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return builder.toString();
+  }
+}
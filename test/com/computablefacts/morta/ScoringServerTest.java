@@ -0,0 +1,136 @@
+package com.computablefacts.morta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.asterix.codecs.JsonCodec;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+import com.computablefacts.morta.labelingfunctions.MatchRegexLabelingFunction;
+import com.computablefacts.morta.labelmodels.TreeLabelModel;
+import com.google.common.io.CharStreams;
+
+public class ScoringServerTest {
+
+  @Test
+  public void testPredict() throws Exception {
+
+    Path dir = Files.createTempDirectory("scoring-server-");
+    save(dir, "fruit", "apple");
+
+    try (ScoringServer server = new ScoringServer(new Repository(dir.toString(), 3), 0)) {
+
+      Assert.assertEquals(1, server.start().size());
+
+      Assert.assertEquals("{\"labels\":{\"fruit\":\"OK\"}}",
+          post(server, "/predict", "I ate an apple"));
+      Assert.assertEquals("{\"labels\":{\"fruit\":\"KO\"}}",
+          post(server, "/predict?label=fruit", "I drove a car"));
+      Assert.assertEquals("[{\"labels\":{\"fruit\":\"OK\"}},{\"labels\":{\"fruit\":\"KO\"}}]",
+          post(server, "/predict/batch", "[\"I ate an apple\",\"I drove a car\"]"));
+      Assert.assertEquals(
+          "[{\"focus_points\":{\"fruit\":\"I ate an apple\"}},{\"focus_points\":{}}]", post(server,
+              "/predictAndGetFocusPoint/batch", "[\"I ate an apple\",\"I drove a car\"]"));
+
+      Map<String, Object> stats = JsonCodec.asObject(get(server, "/stats"));
+
+      Assert.assertTrue(stats.containsKey("/predict"));
+      Assert.assertTrue(stats.containsKey("/predict/batch"));
+    }
+  }
+
+  @Test
+  public void testReload() throws Exception {
+
+    Path dir = Files.createTempDirectory("scoring-server-");
+    save(dir, "fruit", "apple");
+
+    try (ScoringServer server = new ScoringServer(new Repository(dir.toString(), 3), 0)) {
+
+      server.start();
+
+      Assert.assertEquals(404, status(server, "/predict?label=vehicle", "I drove a car"));
+
+      save(dir, "vehicle", "car");
+
+      Assert.assertEquals("{\"labels\":[\"fruit\",\"vehicle\"]}", post(server, "/reload", ""));
+      Assert.assertEquals("{\"labels\":{\"vehicle\":\"OK\"}}",
+          post(server, "/predict?label=vehicle", "I drove a car"));
+    }
+  }
+
+  private void save(Path dir, String label, String keyword) {
+
+    List<AbstractLabelingFunction<String>> lfs = new ArrayList<>();
+    lfs.add(new MatchRegexLabelingFunction(keyword, false, 1.0));
+
+    List<IGoldLabel<String>> goldLabels = new ArrayList<>();
+
+    for (int i = 0; i < 10; i++) {
+      boolean isOk = i % 2 == 0;
+      goldLabels.add(new GoldLabelOfString(Integer.toString(i, 10), label,
+          isOk ? "a text about " + keyword : "a text about nothing", !isOk, isOk, false, false));
+    }
+
+    TreeLabelModel<String> labelModel = new TreeLabelModel<>(lfs, TreeLabelModel.eMetric.F1);
+    labelModel.fit(goldLabels);
+
+    Helpers.serialize(dir.resolve(label + "_labeling_functions.xml.gz").toString(), lfs);
+    Helpers.serialize(dir.resolve(label + "_label_model.xml.gz").toString(), labelModel);
+  }
+
+  private String get(ScoringServer server, String path) throws IOException {
+
+    HttpURLConnection connection = connection(server, path);
+
+    return read(connection.getInputStream());
+  }
+
+  private String post(ScoringServer server, String path, String body) throws IOException {
+
+    HttpURLConnection connection = send(server, path, body);
+
+    Assert.assertEquals(200, connection.getResponseCode());
+
+    return read(connection.getInputStream());
+  }
+
+  private int status(ScoringServer server, String path, String body) throws IOException {
+    return send(server, path, body).getResponseCode();
+  }
+
+  private HttpURLConnection send(ScoringServer server, String path, String body)
+      throws IOException {
+
+    HttpURLConnection connection = connection(server, path);
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+
+    try (OutputStream os = connection.getOutputStream()) {
+      os.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    return connection;
+  }
+
+  private HttpURLConnection connection(ScoringServer server, String path) throws IOException {
+    return (HttpURLConnection) new URL("http://localhost:" + server.port() + path).openConnection();
+  }
+
+  private String read(InputStream is) throws IOException {
+    try (InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+      return CharStreams.toString(reader);
+    }
+  }
+}
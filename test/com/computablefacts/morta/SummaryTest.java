@@ -1,11 +1,14 @@
 package com.computablefacts.morta;
 
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.ABSTAIN;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
 import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -185,6 +188,49 @@ public class SummaryTest {
         correlations.get("isDivisibleBy3", "isDivisibleBy6").cor, 0.000001);
   }
 
+  @Test
+  public void testLabelingFunctionsCorrelationsMatchSmile() {
+
+    Dictionary lfNames = new Dictionary();
+    lfNames.put("lf1", 0);
+    lfNames.put("lf2", 1);
+
+    Dictionary lfLabels = new Dictionary();
+    lfLabels.put("OK", OK);
+    lfLabels.put("KO", KO);
+
+    Random random = new Random(42);
+    List<Map.Entry<Integer, FeatureVector<Integer>>> instances = new ArrayList<>();
+    double[] lf1 = new double[100];
+    double[] lf2 = new double[100];
+
+    for (int i = 0; i < 100; i++) {
+
+      int[] vector = new int[] {random.nextInt(3) - 1, random.nextInt(3) - 1};
+
+      lf1[i] = vector[0];
+      lf2[i] = vector[1];
+      instances.add(new AbstractMap.SimpleEntry<>(i, FeatureVector.of(vector)));
+    }
+
+    CorTest pearson = Summary
+        .labelingFunctionsCorrelations(lfNames, lfLabels, instances, Summary.eCorrelation.PEARSON)
+        .get("lf1", "lf2");
+    CorTest spearman = Summary
+        .labelingFunctionsCorrelations(lfNames, lfLabels, instances, Summary.eCorrelation.SPEARMAN)
+        .get("lf1", "lf2");
+    CorTest kendall = Summary
+        .labelingFunctionsCorrelations(lfNames, lfLabels, instances, Summary.eCorrelation.KENDALL)
+        .get("lf1", "lf2");
+
+    Assert.assertEquals(CorTest.pearson(lf1, lf2).cor, pearson.cor, 0.000001);
+    Assert.assertEquals(CorTest.pearson(lf1, lf2).pvalue, pearson.pvalue, 0.000001);
+    Assert.assertEquals(CorTest.spearman(lf1, lf2).cor, spearman.cor, 0.000001);
+    Assert.assertEquals(CorTest.spearman(lf1, lf2).pvalue, spearman.pvalue, 0.000001);
+    Assert.assertEquals(CorTest.kendall(lf1, lf2).cor, kendall.cor, 0.000001);
+    Assert.assertEquals(CorTest.kendall(lf1, lf2).pvalue, kendall.pvalue, 0.000001);
+  }
+
   @Test
   public void testExplore() {
 
@@ -260,6 +306,40 @@ public class SummaryTest {
     Assert.assertEquals(0, incorrect.getOrDefault("isDivisibleBy6", new ArrayList<>()).size());
   }
 
+  @Test
+  public void testExploreIndices() {
+
+    Dictionary lfNames = new Dictionary();
+    lfNames.put("lf1", 0);
+    lfNames.put("lf2", 1);
+
+    Dictionary lfLabels = new Dictionary();
+    lfLabels.put("OK", OK);
+    lfLabels.put("KO", KO);
+
+    List<Map.Entry<Integer, FeatureVector<Integer>>> instances = Lists.newArrayList(
+        new AbstractMap.SimpleEntry<>(1, FeatureVector.of(new int[] {OK, ABSTAIN})),
+        new AbstractMap.SimpleEntry<>(2, FeatureVector.of(new int[] {KO, ABSTAIN})),
+        new AbstractMap.SimpleEntry<>(3, FeatureVector.of(new int[] {OK, OK})),
+        new AbstractMap.SimpleEntry<>(4, FeatureVector.of(new int[] {ABSTAIN, KO})));
+
+    List<Integer> goldLabels = Lists.newArrayList(OK, OK, KO, ABSTAIN);
+
+    Table<String, Summary.eStatus, int[]> table =
+        Summary.exploreIndices(lfNames, lfLabels, instances, goldLabels);
+
+    Assert.assertEquals(5, table.size());
+
+    Assert.assertArrayEquals(new int[] {0}, table.get("lf1", Summary.eStatus.CORRECT));
+    Assert.assertArrayEquals(new int[] {1, 2}, table.get("lf1", Summary.eStatus.INCORRECT));
+    Assert.assertArrayEquals(new int[] {3}, table.get("lf1", Summary.eStatus.CORRECT_ABSTAIN));
+
+    Assert.assertArrayEquals(new int[] {2, 3}, table.get("lf2", Summary.eStatus.INCORRECT));
+    Assert.assertArrayEquals(new int[] {0, 1},
+        table.get("lf2", Summary.eStatus.INCORRECT_ABSTAIN));
+    Assert.assertFalse(table.contains("lf2", Summary.eStatus.CORRECT_ABSTAIN));
+  }
+
   @Test
   public void testSummarizeWithoutGoldLabels() {
 
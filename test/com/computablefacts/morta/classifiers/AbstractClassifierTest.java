@@ -0,0 +1,97 @@
+package com.computablefacts.morta.classifiers;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import smile.classification.Classifier;
+
+public class AbstractClassifierTest {
+
+  @Test
+  public void testTrainWithSoftTargets() {
+
+    double[][] instances = {{1.0}, {2.0}, {3.0}};
+    double[][] probabilities = {{0.9, 0.1}, {0.2, 0.8}, {0.4, 0.6}};
+
+    RecordingClassifier classifier = new RecordingClassifier();
+    classifier.train(instances, probabilities);
+
+    Assert.assertEquals(Sets.newHashSet(KO, OK), classifier.classes_);
+    Assert.assertSame(instances, classifier.instances_);
+    Assert.assertArrayEquals(new int[] {KO, OK, OK}, classifier.labels_);
+  }
+
+  @Test
+  public void testTrainWithSoftTargetsDropsTiedRows() {
+
+    double[][] instances = {{1.0}, {2.0}, {3.0}, {4.0}};
+    double[][] probabilities = {{0.9, 0.1}, {0.5, 0.5}, {0.2, 0.8}, {0.5, 0.5}};
+
+    RecordingClassifier classifier = new RecordingClassifier();
+    classifier.train(instances, probabilities);
+
+    Assert.assertEquals(Sets.newHashSet(KO, OK), classifier.classes_);
+    Assert.assertArrayEquals(new double[][] {{1.0}, {3.0}}, classifier.instances_);
+    Assert.assertArrayEquals(new int[] {KO, OK}, classifier.labels_);
+  }
+
+  @Test
+  public void testTrainWithSoftTargetsOfASingleLabel() {
+
+    RecordingClassifier classifier = new RecordingClassifier();
+
+    try {
+      classifier.train(new double[][] {{1.0}, {2.0}}, new double[][] {{0.9, 0.1}, {0.7, 0.3}});
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("The number of distinct labels must be > 1", e.getMessage());
+    }
+    Assert.assertNull(classifier.labels_);
+  }
+
+  @Test
+  public void testTrainWithSoftTargetsOfASingleConfidentLabel() {
+
+    RecordingClassifier classifier = new RecordingClassifier();
+
+    // The second row is labeled 1 but is not more probable than a uniform guess
+    try {
+      classifier.train(new double[][] {{1.0}, {2.0}},
+          new double[][] {{0.9, 0.05, 0.05}, {0.3, 0.32, 0.32}});
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("The number of distinct labels must be > 1", e.getMessage());
+    }
+    Assert.assertNull(classifier.labels_);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTrainWithSoftTargetsOfAnotherLength() {
+    new RecordingClassifier().train(new double[][] {{1.0}, {2.0}}, new double[][] {{0.9, 0.1}});
+  }
+
+  private static final class RecordingClassifier extends AbstractClassifier {
+
+    private Set<Integer> classes_;
+    private double[][] instances_;
+    private int[] labels_;
+
+    @Override
+    protected Classifier<double[]> train(Set<Integer> classes, double[][] instances,
+        int[] labels) {
+
+      classes_ = classes;
+      instances_ = instances;
+      labels_ = labels;
+
+      return null;
+    }
+  }
+}
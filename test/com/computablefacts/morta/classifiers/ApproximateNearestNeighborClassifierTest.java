@@ -0,0 +1,109 @@
+package com.computablefacts.morta.classifiers;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.errorprone.annotations.Var;
+
+public class ApproximateNearestNeighborClassifierTest {
+
+  private static final int NB_FEATURES = 1000;
+  private static final int NB_CLUSTERS = 10;
+
+  @Test
+  public void testPredictMatchesExactNearestNeighbor() {
+
+    Random random = new Random(42);
+    int[][] prototypes = prototypes(random);
+    int[] trainLabels = new int[2000];
+    double[][] train = instances(random, prototypes, trainLabels);
+    int[] testLabels = new int[500];
+    double[][] test = instances(random, prototypes, testLabels);
+
+    ApproximateNearestNeighborClassifier classifier = new ApproximateNearestNeighborClassifier();
+    classifier.train(train, trainLabels);
+
+    int[] predictions = classifier.predict(test);
+    int[][] trainFeatures = Arrays.stream(train).map(this::features).toArray(int[][]::new);
+
+    long nbMatches = IntStream.range(0, test.length)
+        .filter(i -> predictions[i] == exactNearestNeighbor(trainFeatures, trainLabels,
+            features(test[i])))
+        .count();
+    long nbCorrect =
+        IntStream.range(0, test.length).filter(i -> predictions[i] == testLabels[i]).count();
+
+    Assert.assertTrue(nbMatches > 0.95 * test.length);
+    Assert.assertTrue(nbCorrect > 0.95 * test.length);
+
+    for (int i = 0; i < test.length; i++) {
+      Assert.assertEquals(predictions[i], classifier.predict(features(test[i])));
+    }
+  }
+
+  private int[][] prototypes(Random random) {
+
+    int[][] prototypes = new int[NB_CLUSTERS][];
+
+    for (int c = 0; c < NB_CLUSTERS; c++) {
+      prototypes[c] = random.ints(0, NB_FEATURES).distinct().limit(30).sorted().toArray();
+    }
+    return prototypes;
+  }
+
+  // Each data point is a noisy copy of the prototype of its cluster : 20% of the features are
+  // dropped and 5 random features are added
+  private double[][] instances(Random random, int[][] prototypes, int[] labels) {
+
+    double[][] instances = new double[labels.length][NB_FEATURES];
+
+    for (int i = 0; i < labels.length; i++) {
+
+      labels[i] = random.nextInt(NB_CLUSTERS);
+
+      for (int feature : prototypes[labels[i]]) {
+        if (random.nextDouble() >= 0.2) {
+          instances[i][feature] = 1.0;
+        }
+      }
+      for (int k = 0; k < 5; k++) {
+        instances[i][random.nextInt(NB_FEATURES)] = 1.0;
+      }
+    }
+    return instances;
+  }
+
+  private int[] features(double[] instance) {
+    return IntStream.range(0, instance.length).filter(j -> instance[j] != 0.0).toArray();
+  }
+
+  private int exactNearestNeighbor(int[][] features, int[] labels, int[] instance) {
+
+    Set<Integer> set = new HashSet<>();
+    Arrays.stream(instance).forEach(set::add);
+
+    @Var
+    double best = -1.0;
+    @Var
+    int label = -1;
+
+    for (int i = 0; i < features.length; i++) {
+
+      long intersection = Arrays.stream(features[i]).filter(set::contains).count();
+      double jaccard =
+          (double) intersection / (features[i].length + instance.length - intersection);
+
+      if (jaccard > best) {
+        best = jaccard;
+        label = labels[i];
+      }
+    }
+    return label;
+  }
+}
@@ -0,0 +1,176 @@
+package com.computablefacts.morta.classifiers;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import smile.classification.SoftClassifier;
+
+public class LinearScorerTest {
+
+  private static final int NB_FEATURES = OnlineLogisticRegressionClassifierTest.NB_FEATURES;
+
+  @Test
+  public void testFloat32ScorerMatchesClassifier() {
+
+    List<Map.Entry<int[], Integer>> data =
+        OnlineLogisticRegressionClassifierTest.instances(new Random(42), 2000);
+    double[][] instances = vectors(data);
+    OnlineLogisticRegressionClassifier classifier = classifier(data);
+
+    LinearScorer scorer = LinearScorer.of(classifier, NB_FEATURES, LinearScorer.ePrecision.FLOAT32,
+        instances, 0.00001);
+
+    Assert.assertEquals(LinearScorer.ePrecision.FLOAT32, scorer.precision());
+
+    int[] predictions = classifier.predict(instances);
+
+    for (int i = 0; i < instances.length; i++) {
+
+      int[] features = features(instances[i]);
+
+      Assert.assertEquals(classifier.probability(features), scorer.probability(features),
+          0.00001);
+      Assert.assertEquals(predictions[i], scorer.predict(features));
+    }
+  }
+
+  @Test
+  public void testInt8ScorerMatchesClassifierWithinTolerance() {
+
+    List<Map.Entry<int[], Integer>> data =
+        OnlineLogisticRegressionClassifierTest.instances(new Random(42), 2000);
+    double[][] instances = vectors(data);
+    OnlineLogisticRegressionClassifier classifier = classifier(data);
+
+    LinearScorer scorer = LinearScorer.of(classifier, NB_FEATURES, LinearScorer.ePrecision.INT8,
+        instances, 0.05);
+
+    Assert.assertEquals(LinearScorer.ePrecision.INT8, scorer.precision());
+
+    for (double[] instance : instances) {
+
+      int[] features = features(instance);
+
+      Assert.assertEquals(classifier.probability(features), scorer.probability(features), 0.05);
+      Assert.assertEquals(scorer.score(features), scorer.score(instance), 0.0001);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testScorerOutOfTolerance() {
+
+    List<Map.Entry<int[], Integer>> data =
+        OnlineLogisticRegressionClassifierTest.instances(new Random(42), 2000);
+    double[][] instances = vectors(data);
+    OnlineLogisticRegressionClassifier classifier = classifier(data);
+
+    LinearScorer unused = LinearScorer.of(classifier, NB_FEATURES, LinearScorer.ePrecision.INT8,
+        instances, 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedClassifier() {
+    LinearScorer unused = LinearScorer.of(new KNearestNeighborClassifier(), NB_FEATURES,
+        LinearScorer.ePrecision.FLOAT32, new double[0][], 0.0);
+  }
+
+  @Test
+  public void testFloat32ScorerMatchesLogisticRegressionPosteriors() {
+    assertMatchesPosteriors(new LogisticRegressionClassifier(), LinearScorer.ePrecision.FLOAT32,
+        0.0001);
+  }
+
+  @Test
+  public void testInt8ScorerMatchesLogisticRegressionPosteriorsWithinTolerance() {
+    assertMatchesPosteriors(new LogisticRegressionClassifier(), LinearScorer.ePrecision.INT8,
+        0.05);
+  }
+
+  @Test
+  public void testFloat32ScorerMatchesLinearDiscriminantAnalysisPosteriors() {
+    assertMatchesPosteriors(new LinearDiscriminantAnalysisClassifier(),
+        LinearScorer.ePrecision.FLOAT32, 0.0001);
+  }
+
+  @Test
+  public void testInt8ScorerMatchesLinearDiscriminantAnalysisPosteriorsWithinTolerance() {
+    assertMatchesPosteriors(new LinearDiscriminantAnalysisClassifier(),
+        LinearScorer.ePrecision.INT8, 0.05);
+  }
+
+  // The scorer must output the posterior of the OK class i.e. posteriori[OK] and the weight of
+  // feature j must be the j-th coefficient (the intercept being the last one)
+  private static void assertMatchesPosteriors(AbstractClassifier classifier,
+      LinearScorer.ePrecision precision, double tolerance) {
+
+    Random random = new Random(42);
+    List<Map.Entry<int[], Integer>> data =
+        OnlineLogisticRegressionClassifierTest.instances(random, 2000);
+    double[][] instances = vectors(data);
+    int[] labels = new int[instances.length];
+
+    // 10% of the labels are flipped to keep the weights finite
+    for (int i = 0; i < instances.length; i++) {
+      labels[i] = data.get(i).getValue() == OK ^ random.nextDouble() < 0.1 ? OK : KO;
+    }
+
+    classifier.train(instances, labels);
+
+    LinearScorer scorer = LinearScorer.of(classifier, NB_FEATURES, precision, instances, tolerance);
+    SoftClassifier<double[]> model = (SoftClassifier<double[]>) classifier.classifier();
+
+    Assert.assertEquals(precision, scorer.precision());
+
+    for (double[] instance : instances) {
+
+      double[] posteriori = new double[2];
+      model.predict(instance, posteriori);
+
+      int[] features = features(instance);
+
+      Assert.assertEquals(posteriori[OK], scorer.probability(features), tolerance);
+
+      if (Math.abs(posteriori[OK] - 0.5) > tolerance) {
+        Assert.assertEquals(posteriori[OK] > 0.5 ? OK : KO, scorer.predict(features));
+      }
+    }
+
+    // Feature 0 is a strong OK indicator
+    Assert.assertEquals(OK, scorer.predict(new int[] {0}));
+    Assert.assertEquals(KO, scorer.predict(new int[] {NB_FEATURES - 1}));
+  }
+
+  private static OnlineLogisticRegressionClassifier classifier(
+      List<Map.Entry<int[], Integer>> data) {
+
+    OnlineLogisticRegressionClassifier classifier =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    classifier.train(vectors(data), data.stream().mapToInt(Map.Entry::getValue).toArray());
+
+    return classifier;
+  }
+
+  private static double[][] vectors(List<Map.Entry<int[], Integer>> data) {
+
+    double[][] vectors = new double[data.size()][NB_FEATURES];
+
+    for (int i = 0; i < data.size(); i++) {
+      for (int feature : data.get(i).getKey()) {
+        vectors[i][feature] = 1.0;
+      }
+    }
+    return vectors;
+  }
+
+  private static int[] features(double[] instance) {
+    return IntStream.range(0, instance.length).filter(j -> instance[j] != 0.0).toArray();
+  }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -101,6 +102,25 @@ public class LogisticRegressionClassifierTest {
 
   @Test
   public void testPredict() {
-    // TODO
+
+    List<Integer> instances = IntStream.range(0, 250).boxed().collect(Collectors.toList());
+    List<FeatureVector<Double>> insts = View.of(instances).map(x -> {
+
+      FeatureVector<Double> vector = new FeatureVector<>(2, 0.0);
+      vector.set(0, x % 2 == 0 ? 1.0 : 0.0);
+      vector.set(1, x % 3 == 0 ? 1.0 : 0.0);
+      return vector;
+    }).toList();
+
+    LogisticRegressionClassifier classifier = new LogisticRegressionClassifier();
+    classifier.train(insts, View.of(instances).map(x -> x % 2 == 0 ? OK : KO).toList());
+
+    List<Integer> expected = insts.stream().map(classifier::predict).collect(Collectors.toList());
+    double[][] matrix = insts.stream().map(FeatureVector::toDoubleArray).toArray(double[][]::new);
+    int[] predictions = classifier.predict(matrix);
+
+    Assert.assertEquals(expected, classifier.predict(insts));
+    Assert.assertArrayEquals(expected.stream().mapToInt(x -> x).toArray(), predictions);
+    Assert.assertEquals(0, classifier.predict(new double[0][]).length);
   }
 }
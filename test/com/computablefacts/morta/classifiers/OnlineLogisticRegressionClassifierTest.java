@@ -0,0 +1,225 @@
+package com.computablefacts.morta.classifiers;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.morta.FeatureVector;
+import com.google.common.collect.Sets;
+
+public class OnlineLogisticRegressionClassifierTest {
+
+  static final int NB_FEATURES = 50;
+
+  @Test
+  public void testTrain() {
+
+    List<Map.Entry<int[], Integer>> instances = instances(new Random(42), 2000);
+    List<FeatureVector<Double>> vectors = instances.stream().map(instance -> {
+
+      FeatureVector<Double> vector = new FeatureVector<>(NB_FEATURES, 0.0);
+
+      for (int feature : instance.getKey()) {
+        vector.set(feature, 1.0);
+      }
+      return vector;
+    }).collect(Collectors.toList());
+
+    OnlineLogisticRegressionClassifier classifier =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    classifier.train(vectors,
+        instances.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+
+    List<Integer> predictions = classifier.predict(vectors);
+
+    long nbCorrect = IntStream.range(0, instances.size())
+        .filter(i -> predictions.get(i).equals(instances.get(i).getValue())).count();
+
+    Assert.assertTrue(nbCorrect > 0.95 * instances.size());
+
+    for (int i = 0; i < instances.size(); i++) {
+      Assert.assertEquals((int) predictions.get(i), classifier.predict(instances.get(i).getKey()));
+    }
+  }
+
+  @Test
+  public void testPartialFit() {
+
+    Random random = new Random(42);
+    List<Map.Entry<int[], Integer>> test = instances(random, 1000);
+
+    OnlineLogisticRegressionClassifier classifier =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    classifier.partialFit(instances(random, 100).iterator());
+
+    double accuracyBefore = accuracy(classifier, test);
+
+    for (int i = 0; i < 10; i++) {
+      classifier.partialFit(instances(random, 1000).iterator());
+    }
+
+    double accuracyAfter = accuracy(classifier, test);
+
+    Assert.assertTrue(accuracyAfter > 0.95);
+    Assert.assertTrue(accuracyAfter >= accuracyBefore);
+  }
+
+  @Test
+  public void testFitFromFileMatchesPartialFit() throws IOException {
+
+    List<Map.Entry<int[], Integer>> instances = instances(new Random(42), 500);
+
+    File file = Files.createTempFile("instances-", ".tsv.gz").toFile();
+    Assert.assertTrue(file.delete());
+
+    OnlineLogisticRegressionClassifier.spill(instances.iterator(), file);
+
+    OnlineLogisticRegressionClassifier classifier1 =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES, 3, 16, 0.1, 0.0001);
+    classifier1.fit(file);
+
+    OnlineLogisticRegressionClassifier classifier2 =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES, 3, 16, 0.1, 0.0001);
+
+    for (int epoch = 0; epoch < 3; epoch++) {
+      classifier2.partialFit(instances.iterator());
+    }
+
+    for (Map.Entry<int[], Integer> instance : instances) {
+      Assert.assertEquals(classifier2.probability(instance.getKey()),
+          classifier1.probability(instance.getKey()), 0.000001);
+    }
+    Assert.assertTrue(file.delete());
+  }
+
+  @Test
+  public void testFitFromFileHashedWithAnotherNumberOfFeatures() throws IOException {
+
+    List<Map.Entry<int[], Integer>> instances = instances(new Random(42), 100);
+
+    File file = Files.createTempFile("instances-", ".tsv.gz").toFile();
+    Assert.assertTrue(file.delete());
+
+    OnlineLogisticRegressionClassifier.spill(instances.iterator(), file);
+
+    OnlineLogisticRegressionClassifier classifier =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES / 2);
+
+    try {
+      classifier.fit(file);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().startsWith("Invalid feature id"));
+    }
+    try {
+      classifier.partialFit(instances.iterator());
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().startsWith("Invalid feature id"));
+    }
+    Assert.assertTrue(file.delete());
+  }
+
+  @Test
+  public void testTrainWithSoftTargetsUsesWeights() {
+
+    // The same data point is labeled OK with a probability of 0.9 and KO with a probability of 0.6
+    double[][] instances = new double[200][NB_FEATURES];
+    int[] labels = new int[instances.length];
+    double[][] probabilities = new double[instances.length][];
+
+    for (int i = 0; i < instances.length; i++) {
+      instances[i][0] = 1.0;
+      labels[i] = i % 2 == 0 ? OK : KO;
+      probabilities[i] = labels[i] == OK ? new double[] {0.1, 0.9} : new double[] {0.6, 0.4};
+    }
+
+    OnlineLogisticRegressionClassifier unweighted =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    unweighted.train(instances, labels);
+
+    OnlineLogisticRegressionClassifier weighted =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    weighted.train(instances, probabilities);
+
+    // Both rows are more probable than a uniform guess : the default hook would keep both of them
+    // and train the unweighted model. The weighted optimum is 0.9 / (0.9 + 0.6) = 0.6
+    Assert.assertEquals(0.5, unweighted.probability(new int[] {0}), 0.02);
+    Assert.assertEquals(0.6, weighted.probability(new int[] {0}), 0.02);
+  }
+
+  @Test
+  public void testTrainWithOneHotSoftTargetsMatchesHardLabels() {
+
+    List<Map.Entry<int[], Integer>> instances = instances(new Random(42), 500);
+    double[][] vectors = new double[instances.size()][NB_FEATURES];
+    int[] labels = new int[instances.size()];
+    double[][] probabilities = new double[instances.size()][2];
+
+    for (int i = 0; i < instances.size(); i++) {
+      for (int feature : instances.get(i).getKey()) {
+        vectors[i][feature] = 1.0;
+      }
+      labels[i] = instances.get(i).getValue();
+      probabilities[i][labels[i]] = 1.0;
+    }
+
+    OnlineLogisticRegressionClassifier classifier1 =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    classifier1.train(vectors, labels);
+
+    OnlineLogisticRegressionClassifier classifier2 =
+        new OnlineLogisticRegressionClassifier(NB_FEATURES);
+    classifier2.train(vectors, probabilities);
+
+    Assert.assertArrayEquals(classifier1.weights(), classifier2.weights(), 0.0);
+    Assert.assertEquals(classifier1.bias(), classifier2.bias(), 0.0);
+  }
+
+  @Test
+  public void testHash() {
+
+    int[] features = OnlineLogisticRegressionClassifier
+        .hash(Sets.newHashSet("[tT][hH][eE]", "[bB][uU][yY][eE][rR]", "[tT][hH][eE]"), 1 << 20);
+
+    Assert.assertEquals(2, features.length);
+    Assert.assertTrue(features[0] < features[1]);
+    Assert.assertTrue(features[0] >= 0 && features[1] < 1 << 20);
+  }
+
+  // OK iif feature 0 or feature 1 is active, other features are noise
+  static List<Map.Entry<int[], Integer>> instances(Random random, int size) {
+
+    List<Map.Entry<int[], Integer>> instances = new ArrayList<>(size);
+
+    for (int i = 0; i < size; i++) {
+
+      int[] features = IntStream.range(0, NB_FEATURES)
+          .filter(feature -> random.nextDouble() < (feature < 2 ? 0.3 : 0.1)).toArray();
+      int label = features.length > 0 && features[0] < 2 ? OK : KO;
+
+      instances.add(new AbstractMap.SimpleImmutableEntry<>(features, label));
+    }
+    return instances;
+  }
+
+  private static double accuracy(OnlineLogisticRegressionClassifier classifier,
+      List<Map.Entry<int[], Integer>> instances) {
+    return (double) instances.stream()
+        .filter(instance -> classifier.predict(instance.getKey()) == instance.getValue()).count()
+        / instances.size();
+  }
+}
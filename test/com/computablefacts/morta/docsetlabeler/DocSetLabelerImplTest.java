@@ -0,0 +1,130 @@
+package com.computablefacts.morta.docsetlabeler;
+
+import static com.computablefacts.morta.Repository.ACCEPT;
+import static com.computablefacts.morta.Repository.REJECT;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.morta.Helpers;
+import com.computablefacts.morta.textcat.FingerPrint;
+import com.computablefacts.morta.textcat.TextCategorizer;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+
+public class DocSetLabelerImplTest {
+
+  @Test
+  public void testFilterMatchesBruteForce() {
+
+    Random random = new Random(42);
+    DocSetLabelerImpl docSetLabeler =
+        new DocSetLabelerImpl(3, HashMultiset.create(), new TextCategorizer(), 50);
+
+    for (int n = 0; n < 50; n++) {
+
+      List<Map.Entry<String, Double>> candidates = new ArrayList<>();
+
+      for (int i = 0; i < 100; i++) {
+
+        StringBuilder candidate = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+
+        for (int k = 0; k < length; k++) {
+          candidate.append((char) ('a' + random.nextInt(3)));
+        }
+        candidates.add(new AbstractMap.SimpleEntry<>(candidate.toString(), 1.0 - i / 100.0));
+      }
+
+      List<Map.Entry<String, Double>> expected = new ArrayList<>();
+
+      for (int i = 0; i < candidates.size(); i++) {
+
+        String cur = candidates.get(i).getKey();
+        boolean match = candidates.subList(0, i).stream().map(Map.Entry::getKey)
+            .anyMatch(prev -> prev.contains(cur) || cur.contains(prev));
+
+        if (!match) {
+          expected.add(candidates.get(i));
+        }
+      }
+
+      Assert.assertEquals(expected, docSetLabeler.filter(candidates));
+    }
+  }
+
+  @Test
+  public void testBoosterIndexMatchesFeatures() {
+
+    List<String> pages = Lists.newArrayList(
+        "The contract is signed by the buyer -- and the seller -- on the 1st day of the month.",
+        "L'été à Paris, la Straße et l'hôtel : \"déjà vu\" (ou pas) ... fin.",
+        "Prices: 12 EUR, 15 USD; the buyer pays the seller before the end of the month.\n\n");
+
+    for (int maxGroupSize = 1; maxGroupSize <= 6; maxGroupSize++) {
+
+      Multiset<String> boosters = HashMultiset.create();
+      boosters.addAll(Helpers.features(maxGroupSize, pages.get(0)).keySet());
+      boosters.addAll(Helpers.features(2, pages.get(1)).keySet());
+      boosters.addAll(Helpers.features(maxGroupSize, pages.get(2)).keySet());
+
+      BoosterIndex index = new BoosterIndex(maxGroupSize, boosters.elementSet());
+
+      for (String page : pages) {
+
+        Set<String> expected = Sets.intersection(
+            Helpers.features(maxGroupSize, page).keySet(), boosters.elementSet());
+
+        Assert.assertEquals(expected, index.find(page));
+      }
+    }
+  }
+
+  @Test
+  public void testParallelModeMatchesSequentialMode() {
+
+    List<String> pagesOk = Lists.newArrayList(
+        "The contract is signed by the buyer and the seller on the first day of the month.",
+        "The buyer agrees to pay the seller the purchase price before the end of the month.",
+        "This contract between the buyer and the seller is governed by the laws of France.");
+    List<String> pagesKo = Lists.newArrayList(
+        "The weather was sunny and the children played in the park all afternoon long.",
+        "The recipe calls for two eggs, a cup of flour and a pinch of salt to start.",
+        "The train to Paris leaves at noon and arrives in the evening after a long trip.");
+    List<String> pages = Lists.newArrayList(pagesOk);
+    pages.addAll(pagesKo);
+
+    Multiset<String> boosters = HashMultiset.create();
+    pagesOk.forEach(page -> boosters.addAll(Helpers.features(3, page).keySet()));
+
+    FingerPrint fpAccepted = new FingerPrint();
+    fpAccepted.category(ACCEPT);
+    fpAccepted.create(pagesOk.iterator(), FingerPrint.DEFAULT_PROFILE_SIZE);
+
+    FingerPrint fpRejected = new FingerPrint();
+    fpRejected.category(REJECT);
+    fpRejected.create(pagesKo.iterator(), FingerPrint.DEFAULT_PROFILE_SIZE);
+
+    TextCategorizer categorizer = new TextCategorizer();
+    categorizer.add(fpAccepted);
+    categorizer.add(fpRejected);
+
+    List<Map.Entry<String, Double>> sequential = new DocSetLabelerImpl(3, boosters, categorizer, 50)
+        .label(pages, pagesOk, pagesKo, 10, 5);
+    List<Map.Entry<String, Double>> parallel =
+        new DocSetLabelerImpl(3, boosters, categorizer, 50, 4).label(pages, pagesOk, pagesKo, 10,
+            5);
+
+    Assert.assertFalse(sequential.isEmpty());
+    Assert.assertEquals(sequential, parallel);
+  }
+}
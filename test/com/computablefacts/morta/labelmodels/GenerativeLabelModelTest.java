@@ -0,0 +1,114 @@
+package com.computablefacts.morta.labelmodels;
+
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.ABSTAIN;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.KO;
+import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction.OK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.computablefacts.morta.FeatureVector;
+import com.computablefacts.morta.labelingfunctions.AbstractLabelingFunction;
+
+public class GenerativeLabelModelTest {
+
+  private static final double[] ACCURACIES = new double[] {0.95, 0.85, 0.75, 0.65, 0.55};
+  private static final double[] PROPENSITIES = new double[] {0.3, 0.5, 0.7, 0.9, 0.9};
+
+  @Test
+  public void testFitRecoversAccuraciesAndPropensities() {
+
+    Random random = new Random(42);
+    int[] actuals = new int[5000];
+    int[][] matrix = matrix(random, actuals);
+
+    GenerativeLabelModel<String> labelModel = new GenerativeLabelModel<>(lfs(matrix));
+    labelModel.fit(matrix);
+
+    double[] accuracies = labelModel.accuracies();
+    double[] propensities = labelModel.propensities();
+
+    for (int m = 0; m < ACCURACIES.length; m++) {
+      Assert.assertEquals(ACCURACIES[m], accuracies[m], 0.05);
+      Assert.assertEquals(PROPENSITIES[m], propensities[m], 0.05);
+    }
+    Assert.assertEquals(0.3, labelModel.priors()[OK], 0.05);
+  }
+
+  @Test
+  public void testPredict() {
+
+    Random random = new Random(42);
+    int[] actuals = new int[5000];
+    int[][] matrix = matrix(random, actuals);
+
+    GenerativeLabelModel<String> labelModel = new GenerativeLabelModel<>(lfs(matrix));
+    labelModel.fit(matrix);
+
+    List<String> data =
+        IntStream.range(0, matrix.length).mapToObj(Integer::toString).collect(Collectors.toList());
+    List<Integer> predictions = labelModel.predict(data);
+    List<FeatureVector<Double>> probabilities = labelModel.probabilities(data);
+
+    long nbCorrect = IntStream.range(0, actuals.length)
+        .filter(i -> predictions.get(i) == actuals[i]).count();
+
+    Assert.assertTrue(nbCorrect > 0.85 * actuals.length);
+    Assert.assertEquals(data.size(), probabilities.size());
+
+    for (int i = 0; i < data.size(); i++) {
+
+      FeatureVector<Double> probability = probabilities.get(i);
+
+      Assert.assertEquals(1.0, probability.get(KO) + probability.get(OK), 0.000001);
+      Assert.assertEquals(probability.get(OK) > probability.get(KO) ? OK : KO,
+          (int) predictions.get(i));
+    }
+  }
+
+  private int[][] matrix(Random random, int[] actuals) {
+
+    int[][] matrix = new int[actuals.length][ACCURACIES.length];
+
+    for (int i = 0; i < actuals.length; i++) {
+
+      actuals[i] = random.nextDouble() < 0.3 ? OK : KO;
+
+      for (int m = 0; m < ACCURACIES.length; m++) {
+        if (random.nextDouble() >= PROPENSITIES[m]) {
+          matrix[i][m] = ABSTAIN;
+        } else if (random.nextDouble() < ACCURACIES[m]) {
+          matrix[i][m] = actuals[i];
+        } else {
+          matrix[i][m] = actuals[i] == OK ? KO : OK;
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private List<AbstractLabelingFunction<String>> lfs(int[][] matrix) {
+
+    List<AbstractLabelingFunction<String>> lfs = new ArrayList<>();
+
+    for (int m = 0; m < ACCURACIES.length; m++) {
+
+      int lf = m;
+
+      lfs.add(new AbstractLabelingFunction<String>("lf" + m) {
+
+        @Override
+        public Integer apply(String s) {
+          return matrix[Integer.parseInt(s, 10)][lf];
+        }
+      });
+    }
+    return lfs;
+  }
+}
@@ -4,8 +4,10 @@ import static com.computablefacts.morta.labelingfunctions.AbstractLabelingFuncti
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.junit.Assert;
@@ -158,6 +160,39 @@ public class MajorityLabelModelTest {
     Assert.assertEquals(goldProbs, probabilities);
   }
 
+  @Test
+  public void testPredictionsMatchProbabilities() {
+
+    Dictionary lfNames = new Dictionary();
+    lfNames.put("lf1", 0);
+    lfNames.put("lf2", 1);
+    lfNames.put("lf3", 2);
+    lfNames.put("lf4", 3);
+
+    Random random = new Random(42);
+    int[][] matrix = new int[500][4];
+
+    for (int i = 0; i < matrix.length; i++) {
+      for (int m = 0; m < matrix[i].length; m++) {
+        matrix[i][m] = random.nextInt(3) - 1;
+      }
+    }
+
+    for (MajorityLabelModel.eTieBreakPolicy policy : new MajorityLabelModel.eTieBreakPolicy[] {
+        MajorityLabelModel.eTieBreakPolicy.RANDOM, MajorityLabelModel.eTieBreakPolicy.ABSTAIN}) {
+      for (double tolerance : new double[] {0.0, 0.00001, 0.75}) {
+
+        List<FeatureVector<Integer>> instances =
+            Arrays.stream(matrix).map(FeatureVector::of).collect(Collectors.toList());
+        List<Integer> expected = MajorityLabelModel.predictions(lfNames, lfLabels(),
+            MajorityLabelModel.probabilities(lfNames, lfLabels(), instances), policy, tolerance);
+        int[] actual = MajorityLabelModel.predictions(matrix, lfLabels().size(), policy, tolerance);
+
+        Assert.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual);
+      }
+    }
+  }
+
   @Test
   public void testLabelingFunctionsCorrelations() {
 
@@ -229,6 +264,44 @@ public class MajorityLabelModelTest {
     Assert.assertEquals(Lists.newArrayList(KO, KO, KO, KO, KO, OK, KO, KO, KO, KO, KO, OK), list);
   }
 
+  @Test
+  public void testPredictProba() {
+
+    MajorityLabelModel<String> labelModel = labelModel();
+    labelModel.fit(goldLabels());
+
+    List<String> data = goldLabels().stream().map(IGoldLabel::data).collect(Collectors.toList());
+    List<FeatureVector<Integer>> instances = data.stream().map(Helpers.label(lfs()))
+        .map(Map.Entry::getValue).collect(Collectors.toList());
+    List<FeatureVector<Double>> expected =
+        MajorityLabelModel.probabilities(labelModel.lfNames(), lfLabels(), instances);
+    double[][] actual = labelModel.predictProba(data);
+
+    Assert.assertEquals(expected.size(), actual.length);
+
+    for (int i = 0; i < actual.length; i++) {
+      Assert.assertArrayEquals(expected.get(i).toDoubleArray(), actual[i], 0.000001);
+    }
+  }
+
+  @Test
+  public void testPredictLazily() {
+
+    MajorityLabelModel<String> labelModel = labelModel();
+    labelModel.fit(goldLabels());
+
+    List<String> data = goldLabels().stream().map(IGoldLabel::data).collect(Collectors.toList());
+    List<Integer> expected = labelModel.predict(data);
+
+    Assert.assertEquals(expected, Lists.newArrayList(labelModel.predict(data.iterator())));
+    Assert.assertEquals(expected, labelModel.predict(data.stream()).collect(Collectors.toList()));
+
+    for (String datum : data) {
+      Assert.assertEquals(labelModel.predict(Lists.newArrayList(datum)).get(0),
+          (Integer) labelModel.predictOne(datum));
+    }
+  }
+
   private MajorityLabelModel<String> labelModel() {
     return new MajorityLabelModel<>(lfs());
   }
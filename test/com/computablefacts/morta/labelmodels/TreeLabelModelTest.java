@@ -97,6 +97,46 @@ public class TreeLabelModelTest {
     Assert.assertEquals(Lists.newArrayList(KO, KO, OK, KO, KO, OK, KO, KO, OK, KO, KO, OK), list);
   }
 
+  @Test
+  public void testPredictLazily() {
+
+    TreeLabelModel<String> labelModel = labelModel();
+    labelModel.fit(goldLabels());
+
+    List<String> data = goldLabels().stream().map(IGoldLabel::data).collect(Collectors.toList());
+    List<Integer> expected = labelModel.predict(data);
+
+    Assert.assertEquals(expected, Lists.newArrayList(labelModel.predict(data.iterator())));
+    Assert.assertEquals(expected, labelModel.predict(data.stream()).collect(Collectors.toList()));
+
+    for (String datum : data) {
+      Assert.assertEquals(labelModel.predict(Lists.newArrayList(datum)).get(0),
+          (Integer) labelModel.predictOne(datum));
+      Assert.assertEquals(labelModel.predictOne(datum),
+          labelModel.predictOne(lf -> lf.apply(datum)));
+    }
+  }
+
+  @Test
+  public void testUpdateMatchesFit() {
+
+    List<IGoldLabel<String>> goldLabels = goldLabels();
+
+    TreeLabelModel<String> labelModel = labelModel();
+    labelModel.fit(goldLabels);
+
+    TreeLabelModel<String> labelModelUpdated = labelModel();
+    labelModelUpdated.fit(goldLabels.subList(0, 5));
+    labelModelUpdated.update(goldLabels.subList(5, 9));
+    labelModelUpdated.update(goldLabels.subList(9, goldLabels.size()));
+
+    List<String> data = goldLabels.stream().map(IGoldLabel::data).collect(Collectors.toList());
+
+    Assert.assertEquals(goldLabels.size(), labelModelUpdated.nbGoldLabels());
+    Assert.assertEquals(labelModel.toString(), labelModelUpdated.toString());
+    Assert.assertEquals(labelModel.predict(data), labelModelUpdated.predict(data));
+  }
+
   @Test
   public void testConfusionMatrix() {
 
@@ -0,0 +1,60 @@
+package com.computablefacts.morta.textcat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class FingerPrintTest {
+
+  @Test
+  public void testSpaceSavingKeepsHeavyHitters() {
+
+    SpaceSaving sketch = new SpaceSaving(3);
+    sketch.add("a", 10);
+    sketch.add("b", 5);
+    sketch.add("c", 1);
+    sketch.add("d", 1);
+    sketch.add("e", 1);
+
+    List<Map.Entry<String, Integer>> top = sketch.top(2);
+
+    Assert.assertEquals(3, sketch.size());
+    Assert.assertEquals(2, top.size());
+    Assert.assertEquals("a", top.get(0).getKey());
+    Assert.assertEquals(10, (int) top.get(0).getValue());
+    Assert.assertEquals("b", top.get(1).getKey());
+    Assert.assertEquals(5, (int) top.get(1).getValue());
+  }
+
+  @Test
+  public void testStreamingCreateMatchesCreate() {
+
+    String text = "The quick brown fox jumps over the lazy dog. The dog sleeps.\n\n\n";
+
+    FingerPrint fp1 = new FingerPrint();
+    fp1.create(text);
+
+    FingerPrint fp2 = new FingerPrint();
+    fp2.create(Lists.newArrayList(text).iterator(), FingerPrint.DEFAULT_PROFILE_SIZE);
+
+    Assert.assertEquals(fp1, fp2);
+    Assert.assertEquals(fp1.toString(), fp2.toString());
+  }
+
+  @Test
+  public void testStreamingCreateIsTruncated() {
+
+    List<String> texts = Lists.newArrayList("The quick brown fox jumps over the lazy dog.\n\n\n",
+        "The dog sleeps and the fox runs.\n\n\n", "The fox and the dog are friends.\n\n\n");
+
+    FingerPrint fp = new FingerPrint();
+    fp.create(texts.iterator(), 10);
+
+    Assert.assertEquals(10, fp.size());
+    Assert.assertTrue(fp.containsKey("_the"));
+  }
+}